@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico.benchmarks;
+
+import com.picocontainer.MutablePicoContainer;
+import com.thoughtworks.mockpico.Mockpico;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.thoughtworks.mockpico.Mockpico.makePicoContainer;
+import static com.thoughtworks.mockpico.Mockpico.mockDepsFor;
+
+/**
+ * resetAll and verifyNoMoreInteractionsForAll over a container holding the ten mocks of a
+ * Ctor10 plus enough real components to reach the adapter count.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkMockBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int adapters;
+
+    private MutablePicoContainer mocks;
+
+    @Setup
+    public void setUp() {
+        mocks = makePicoContainer();
+        mockDepsFor(Controllers.Ctor10.class).using(mocks).make();
+        for (int i = mocks.getComponentAdapters().size(); i < adapters; i++) {
+            mocks.addComponent("real" + i, new Object());
+        }
+    }
+
+    @Benchmark
+    public void resetAll() {
+        Mockpico.resetAll(mocks);
+    }
+
+    @Benchmark
+    public void verifyNoMoreInteractionsForAll() {
+        Mockpico.verifyNoMoreInteractionsForAll(mocks);
+    }
+
+}
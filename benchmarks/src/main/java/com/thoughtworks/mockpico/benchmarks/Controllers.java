@@ -0,0 +1,500 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico.benchmarks;
+
+import javax.inject.Inject;
+import java.util.List;
+
+import static com.thoughtworks.mockpico.benchmarks.Deps.*;
+
+public class Controllers {
+
+    public static class Ctor1 {
+        private final Object[] deps;
+
+        public Ctor1(
+                Dep0 dep0) {
+            this.deps = new Object[] {dep0};
+        }
+    }
+
+    public static class Ctor10 {
+        private final Object[] deps;
+
+        public Ctor10(
+                Dep0 dep0,
+                Dep1 dep1,
+                Dep2 dep2,
+                Dep3 dep3,
+                Dep4 dep4,
+                Dep5 dep5,
+                Dep6 dep6,
+                Dep7 dep7,
+                Dep8 dep8,
+                Dep9 dep9) {
+            this.deps = new Object[] {dep0, dep1, dep2, dep3, dep4, dep5, dep6, dep7, dep8, dep9};
+        }
+    }
+
+    public static class Ctor50 {
+        private final Object[] deps;
+
+        public Ctor50(
+                Dep0 dep0,
+                Dep1 dep1,
+                Dep2 dep2,
+                Dep3 dep3,
+                Dep4 dep4,
+                Dep5 dep5,
+                Dep6 dep6,
+                Dep7 dep7,
+                Dep8 dep8,
+                Dep9 dep9,
+                Dep10 dep10,
+                Dep11 dep11,
+                Dep12 dep12,
+                Dep13 dep13,
+                Dep14 dep14,
+                Dep15 dep15,
+                Dep16 dep16,
+                Dep17 dep17,
+                Dep18 dep18,
+                Dep19 dep19,
+                Dep20 dep20,
+                Dep21 dep21,
+                Dep22 dep22,
+                Dep23 dep23,
+                Dep24 dep24,
+                Dep25 dep25,
+                Dep26 dep26,
+                Dep27 dep27,
+                Dep28 dep28,
+                Dep29 dep29,
+                Dep30 dep30,
+                Dep31 dep31,
+                Dep32 dep32,
+                Dep33 dep33,
+                Dep34 dep34,
+                Dep35 dep35,
+                Dep36 dep36,
+                Dep37 dep37,
+                Dep38 dep38,
+                Dep39 dep39,
+                Dep40 dep40,
+                Dep41 dep41,
+                Dep42 dep42,
+                Dep43 dep43,
+                Dep44 dep44,
+                Dep45 dep45,
+                Dep46 dep46,
+                Dep47 dep47,
+                Dep48 dep48,
+                Dep49 dep49) {
+            this.deps = new Object[] {
+                    dep0, dep1, dep2, dep3, dep4, dep5, dep6, dep7, dep8, dep9,
+                    dep10, dep11, dep12, dep13, dep14, dep15, dep16, dep17, dep18, dep19,
+                    dep20, dep21, dep22, dep23, dep24, dep25, dep26, dep27, dep28, dep29,
+                    dep30, dep31, dep32, dep33, dep34, dep35, dep36, dep37, dep38, dep39,
+                    dep40, dep41, dep42, dep43, dep44, dep45, dep46, dep47, dep48, dep49};
+        }
+    }
+
+    public static class Ctor200 {
+        private final Object[] deps;
+
+        public Ctor200(
+                Dep0 dep0,
+                Dep1 dep1,
+                Dep2 dep2,
+                Dep3 dep3,
+                Dep4 dep4,
+                Dep5 dep5,
+                Dep6 dep6,
+                Dep7 dep7,
+                Dep8 dep8,
+                Dep9 dep9,
+                Dep10 dep10,
+                Dep11 dep11,
+                Dep12 dep12,
+                Dep13 dep13,
+                Dep14 dep14,
+                Dep15 dep15,
+                Dep16 dep16,
+                Dep17 dep17,
+                Dep18 dep18,
+                Dep19 dep19,
+                Dep20 dep20,
+                Dep21 dep21,
+                Dep22 dep22,
+                Dep23 dep23,
+                Dep24 dep24,
+                Dep25 dep25,
+                Dep26 dep26,
+                Dep27 dep27,
+                Dep28 dep28,
+                Dep29 dep29,
+                Dep30 dep30,
+                Dep31 dep31,
+                Dep32 dep32,
+                Dep33 dep33,
+                Dep34 dep34,
+                Dep35 dep35,
+                Dep36 dep36,
+                Dep37 dep37,
+                Dep38 dep38,
+                Dep39 dep39,
+                Dep40 dep40,
+                Dep41 dep41,
+                Dep42 dep42,
+                Dep43 dep43,
+                Dep44 dep44,
+                Dep45 dep45,
+                Dep46 dep46,
+                Dep47 dep47,
+                Dep48 dep48,
+                Dep49 dep49,
+                Dep50 dep50,
+                Dep51 dep51,
+                Dep52 dep52,
+                Dep53 dep53,
+                Dep54 dep54,
+                Dep55 dep55,
+                Dep56 dep56,
+                Dep57 dep57,
+                Dep58 dep58,
+                Dep59 dep59,
+                Dep60 dep60,
+                Dep61 dep61,
+                Dep62 dep62,
+                Dep63 dep63,
+                Dep64 dep64,
+                Dep65 dep65,
+                Dep66 dep66,
+                Dep67 dep67,
+                Dep68 dep68,
+                Dep69 dep69,
+                Dep70 dep70,
+                Dep71 dep71,
+                Dep72 dep72,
+                Dep73 dep73,
+                Dep74 dep74,
+                Dep75 dep75,
+                Dep76 dep76,
+                Dep77 dep77,
+                Dep78 dep78,
+                Dep79 dep79,
+                Dep80 dep80,
+                Dep81 dep81,
+                Dep82 dep82,
+                Dep83 dep83,
+                Dep84 dep84,
+                Dep85 dep85,
+                Dep86 dep86,
+                Dep87 dep87,
+                Dep88 dep88,
+                Dep89 dep89,
+                Dep90 dep90,
+                Dep91 dep91,
+                Dep92 dep92,
+                Dep93 dep93,
+                Dep94 dep94,
+                Dep95 dep95,
+                Dep96 dep96,
+                Dep97 dep97,
+                Dep98 dep98,
+                Dep99 dep99,
+                Dep100 dep100,
+                Dep101 dep101,
+                Dep102 dep102,
+                Dep103 dep103,
+                Dep104 dep104,
+                Dep105 dep105,
+                Dep106 dep106,
+                Dep107 dep107,
+                Dep108 dep108,
+                Dep109 dep109,
+                Dep110 dep110,
+                Dep111 dep111,
+                Dep112 dep112,
+                Dep113 dep113,
+                Dep114 dep114,
+                Dep115 dep115,
+                Dep116 dep116,
+                Dep117 dep117,
+                Dep118 dep118,
+                Dep119 dep119,
+                Dep120 dep120,
+                Dep121 dep121,
+                Dep122 dep122,
+                Dep123 dep123,
+                Dep124 dep124,
+                Dep125 dep125,
+                Dep126 dep126,
+                Dep127 dep127,
+                Dep128 dep128,
+                Dep129 dep129,
+                Dep130 dep130,
+                Dep131 dep131,
+                Dep132 dep132,
+                Dep133 dep133,
+                Dep134 dep134,
+                Dep135 dep135,
+                Dep136 dep136,
+                Dep137 dep137,
+                Dep138 dep138,
+                Dep139 dep139,
+                Dep140 dep140,
+                Dep141 dep141,
+                Dep142 dep142,
+                Dep143 dep143,
+                Dep144 dep144,
+                Dep145 dep145,
+                Dep146 dep146,
+                Dep147 dep147,
+                Dep148 dep148,
+                Dep149 dep149,
+                Dep150 dep150,
+                Dep151 dep151,
+                Dep152 dep152,
+                Dep153 dep153,
+                Dep154 dep154,
+                Dep155 dep155,
+                Dep156 dep156,
+                Dep157 dep157,
+                Dep158 dep158,
+                Dep159 dep159,
+                Dep160 dep160,
+                Dep161 dep161,
+                Dep162 dep162,
+                Dep163 dep163,
+                Dep164 dep164,
+                Dep165 dep165,
+                Dep166 dep166,
+                Dep167 dep167,
+                Dep168 dep168,
+                Dep169 dep169,
+                Dep170 dep170,
+                Dep171 dep171,
+                Dep172 dep172,
+                Dep173 dep173,
+                Dep174 dep174,
+                Dep175 dep175,
+                Dep176 dep176,
+                Dep177 dep177,
+                Dep178 dep178,
+                Dep179 dep179,
+                Dep180 dep180,
+                Dep181 dep181,
+                Dep182 dep182,
+                Dep183 dep183,
+                Dep184 dep184,
+                Dep185 dep185,
+                Dep186 dep186,
+                Dep187 dep187,
+                Dep188 dep188,
+                Dep189 dep189,
+                Dep190 dep190,
+                Dep191 dep191,
+                Dep192 dep192,
+                Dep193 dep193,
+                Dep194 dep194,
+                Dep195 dep195,
+                Dep196 dep196,
+                Dep197 dep197,
+                Dep198 dep198,
+                Dep199 dep199) {
+            this.deps = new Object[] {
+                    dep0, dep1, dep2, dep3, dep4, dep5, dep6, dep7, dep8, dep9,
+                    dep10, dep11, dep12, dep13, dep14, dep15, dep16, dep17, dep18, dep19,
+                    dep20, dep21, dep22, dep23, dep24, dep25, dep26, dep27, dep28, dep29,
+                    dep30, dep31, dep32, dep33, dep34, dep35, dep36, dep37, dep38, dep39,
+                    dep40, dep41, dep42, dep43, dep44, dep45, dep46, dep47, dep48, dep49,
+                    dep50, dep51, dep52, dep53, dep54, dep55, dep56, dep57, dep58, dep59,
+                    dep60, dep61, dep62, dep63, dep64, dep65, dep66, dep67, dep68, dep69,
+                    dep70, dep71, dep72, dep73, dep74, dep75, dep76, dep77, dep78, dep79,
+                    dep80, dep81, dep82, dep83, dep84, dep85, dep86, dep87, dep88, dep89,
+                    dep90, dep91, dep92, dep93, dep94, dep95, dep96, dep97, dep98, dep99,
+                    dep100, dep101, dep102, dep103, dep104, dep105, dep106, dep107, dep108, dep109,
+                    dep110, dep111, dep112, dep113, dep114, dep115, dep116, dep117, dep118, dep119,
+                    dep120, dep121, dep122, dep123, dep124, dep125, dep126, dep127, dep128, dep129,
+                    dep130, dep131, dep132, dep133, dep134, dep135, dep136, dep137, dep138, dep139,
+                    dep140, dep141, dep142, dep143, dep144, dep145, dep146, dep147, dep148, dep149,
+                    dep150, dep151, dep152, dep153, dep154, dep155, dep156, dep157, dep158, dep159,
+                    dep160, dep161, dep162, dep163, dep164, dep165, dep166, dep167, dep168, dep169,
+                    dep170, dep171, dep172, dep173, dep174, dep175, dep176, dep177, dep178, dep179,
+                    dep180, dep181, dep182, dep183, dep184, dep185, dep186, dep187, dep188, dep189,
+                    dep190, dep191, dep192, dep193, dep194, dep195, dep196, dep197, dep198, dep199};
+        }
+    }
+
+    public static class Fields10 {
+        @Inject
+        private Dep0 dep0;
+        @Inject
+        private Dep1 dep1;
+        @Inject
+        private Dep2 dep2;
+        @Inject
+        private Dep3 dep3;
+        @Inject
+        private Dep4 dep4;
+        @Inject
+        private Dep5 dep5;
+        @Inject
+        private Dep6 dep6;
+        @Inject
+        private Dep7 dep7;
+        @Inject
+        private Dep8 dep8;
+        @Inject
+        private Dep9 dep9;
+    }
+
+    public static class Methods10 {
+        private final Object[] deps = new Object[10];
+
+        @Inject
+        public void inject0(Dep0 dep) {
+            deps[0] = dep;
+        }
+
+        @Inject
+        public void inject1(Dep1 dep) {
+            deps[1] = dep;
+        }
+
+        @Inject
+        public void inject2(Dep2 dep) {
+            deps[2] = dep;
+        }
+
+        @Inject
+        public void inject3(Dep3 dep) {
+            deps[3] = dep;
+        }
+
+        @Inject
+        public void inject4(Dep4 dep) {
+            deps[4] = dep;
+        }
+
+        @Inject
+        public void inject5(Dep5 dep) {
+            deps[5] = dep;
+        }
+
+        @Inject
+        public void inject6(Dep6 dep) {
+            deps[6] = dep;
+        }
+
+        @Inject
+        public void inject7(Dep7 dep) {
+            deps[7] = dep;
+        }
+
+        @Inject
+        public void inject8(Dep8 dep) {
+            deps[8] = dep;
+        }
+
+        @Inject
+        public void inject9(Dep9 dep) {
+            deps[9] = dep;
+        }
+    }
+
+    public static class Setters10 {
+        private final Object[] deps = new Object[10];
+
+        public void setDep0(Dep0 dep) {
+            deps[0] = dep;
+        }
+
+        public void setDep1(Dep1 dep) {
+            deps[1] = dep;
+        }
+
+        public void setDep2(Dep2 dep) {
+            deps[2] = dep;
+        }
+
+        public void setDep3(Dep3 dep) {
+            deps[3] = dep;
+        }
+
+        public void setDep4(Dep4 dep) {
+            deps[4] = dep;
+        }
+
+        public void setDep5(Dep5 dep) {
+            deps[5] = dep;
+        }
+
+        public void setDep6(Dep6 dep) {
+            deps[6] = dep;
+        }
+
+        public void setDep7(Dep7 dep) {
+            deps[7] = dep;
+        }
+
+        public void setDep8(Dep8 dep) {
+            deps[8] = dep;
+        }
+
+        public void setDep9(Dep9 dep) {
+            deps[9] = dep;
+        }
+    }
+
+    public static class Generic20 {
+        private final Object[] deps;
+
+        public Generic20(
+                List<Dep0> dep0,
+                List<Dep1> dep1,
+                List<Dep2> dep2,
+                List<Dep3> dep3,
+                List<Dep4> dep4,
+                List<Dep5> dep5,
+                List<Dep6> dep6,
+                List<Dep7> dep7,
+                List<Dep8> dep8,
+                List<Dep9> dep9,
+                List<Dep10> dep10,
+                List<Dep11> dep11,
+                List<Dep12> dep12,
+                List<Dep13> dep13,
+                List<Dep14> dep14,
+                List<Dep15> dep15,
+                List<Dep16> dep16,
+                List<Dep17> dep17,
+                List<Dep18> dep18,
+                List<Dep19> dep19) {
+            this.deps = new Object[] {
+                    dep0, dep1, dep2, dep3, dep4, dep5, dep6, dep7, dep8, dep9,
+                    dep10, dep11, dep12, dep13, dep14, dep15, dep16, dep17, dep18, dep19};
+        }
+    }
+
+}
@@ -0,0 +1,826 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico.benchmarks;
+
+public class Deps {
+
+    public interface Dep0 {
+        Object call();
+    }
+
+    public interface Dep1 {
+        Object call();
+    }
+
+    public interface Dep2 {
+        Object call();
+    }
+
+    public interface Dep3 {
+        Object call();
+    }
+
+    public interface Dep4 {
+        Object call();
+    }
+
+    public interface Dep5 {
+        Object call();
+    }
+
+    public interface Dep6 {
+        Object call();
+    }
+
+    public interface Dep7 {
+        Object call();
+    }
+
+    public interface Dep8 {
+        Object call();
+    }
+
+    public interface Dep9 {
+        Object call();
+    }
+
+    public interface Dep10 {
+        Object call();
+    }
+
+    public interface Dep11 {
+        Object call();
+    }
+
+    public interface Dep12 {
+        Object call();
+    }
+
+    public interface Dep13 {
+        Object call();
+    }
+
+    public interface Dep14 {
+        Object call();
+    }
+
+    public interface Dep15 {
+        Object call();
+    }
+
+    public interface Dep16 {
+        Object call();
+    }
+
+    public interface Dep17 {
+        Object call();
+    }
+
+    public interface Dep18 {
+        Object call();
+    }
+
+    public interface Dep19 {
+        Object call();
+    }
+
+    public interface Dep20 {
+        Object call();
+    }
+
+    public interface Dep21 {
+        Object call();
+    }
+
+    public interface Dep22 {
+        Object call();
+    }
+
+    public interface Dep23 {
+        Object call();
+    }
+
+    public interface Dep24 {
+        Object call();
+    }
+
+    public interface Dep25 {
+        Object call();
+    }
+
+    public interface Dep26 {
+        Object call();
+    }
+
+    public interface Dep27 {
+        Object call();
+    }
+
+    public interface Dep28 {
+        Object call();
+    }
+
+    public interface Dep29 {
+        Object call();
+    }
+
+    public interface Dep30 {
+        Object call();
+    }
+
+    public interface Dep31 {
+        Object call();
+    }
+
+    public interface Dep32 {
+        Object call();
+    }
+
+    public interface Dep33 {
+        Object call();
+    }
+
+    public interface Dep34 {
+        Object call();
+    }
+
+    public interface Dep35 {
+        Object call();
+    }
+
+    public interface Dep36 {
+        Object call();
+    }
+
+    public interface Dep37 {
+        Object call();
+    }
+
+    public interface Dep38 {
+        Object call();
+    }
+
+    public interface Dep39 {
+        Object call();
+    }
+
+    public interface Dep40 {
+        Object call();
+    }
+
+    public interface Dep41 {
+        Object call();
+    }
+
+    public interface Dep42 {
+        Object call();
+    }
+
+    public interface Dep43 {
+        Object call();
+    }
+
+    public interface Dep44 {
+        Object call();
+    }
+
+    public interface Dep45 {
+        Object call();
+    }
+
+    public interface Dep46 {
+        Object call();
+    }
+
+    public interface Dep47 {
+        Object call();
+    }
+
+    public interface Dep48 {
+        Object call();
+    }
+
+    public interface Dep49 {
+        Object call();
+    }
+
+    public interface Dep50 {
+        Object call();
+    }
+
+    public interface Dep51 {
+        Object call();
+    }
+
+    public interface Dep52 {
+        Object call();
+    }
+
+    public interface Dep53 {
+        Object call();
+    }
+
+    public interface Dep54 {
+        Object call();
+    }
+
+    public interface Dep55 {
+        Object call();
+    }
+
+    public interface Dep56 {
+        Object call();
+    }
+
+    public interface Dep57 {
+        Object call();
+    }
+
+    public interface Dep58 {
+        Object call();
+    }
+
+    public interface Dep59 {
+        Object call();
+    }
+
+    public interface Dep60 {
+        Object call();
+    }
+
+    public interface Dep61 {
+        Object call();
+    }
+
+    public interface Dep62 {
+        Object call();
+    }
+
+    public interface Dep63 {
+        Object call();
+    }
+
+    public interface Dep64 {
+        Object call();
+    }
+
+    public interface Dep65 {
+        Object call();
+    }
+
+    public interface Dep66 {
+        Object call();
+    }
+
+    public interface Dep67 {
+        Object call();
+    }
+
+    public interface Dep68 {
+        Object call();
+    }
+
+    public interface Dep69 {
+        Object call();
+    }
+
+    public interface Dep70 {
+        Object call();
+    }
+
+    public interface Dep71 {
+        Object call();
+    }
+
+    public interface Dep72 {
+        Object call();
+    }
+
+    public interface Dep73 {
+        Object call();
+    }
+
+    public interface Dep74 {
+        Object call();
+    }
+
+    public interface Dep75 {
+        Object call();
+    }
+
+    public interface Dep76 {
+        Object call();
+    }
+
+    public interface Dep77 {
+        Object call();
+    }
+
+    public interface Dep78 {
+        Object call();
+    }
+
+    public interface Dep79 {
+        Object call();
+    }
+
+    public interface Dep80 {
+        Object call();
+    }
+
+    public interface Dep81 {
+        Object call();
+    }
+
+    public interface Dep82 {
+        Object call();
+    }
+
+    public interface Dep83 {
+        Object call();
+    }
+
+    public interface Dep84 {
+        Object call();
+    }
+
+    public interface Dep85 {
+        Object call();
+    }
+
+    public interface Dep86 {
+        Object call();
+    }
+
+    public interface Dep87 {
+        Object call();
+    }
+
+    public interface Dep88 {
+        Object call();
+    }
+
+    public interface Dep89 {
+        Object call();
+    }
+
+    public interface Dep90 {
+        Object call();
+    }
+
+    public interface Dep91 {
+        Object call();
+    }
+
+    public interface Dep92 {
+        Object call();
+    }
+
+    public interface Dep93 {
+        Object call();
+    }
+
+    public interface Dep94 {
+        Object call();
+    }
+
+    public interface Dep95 {
+        Object call();
+    }
+
+    public interface Dep96 {
+        Object call();
+    }
+
+    public interface Dep97 {
+        Object call();
+    }
+
+    public interface Dep98 {
+        Object call();
+    }
+
+    public interface Dep99 {
+        Object call();
+    }
+
+    public interface Dep100 {
+        Object call();
+    }
+
+    public interface Dep101 {
+        Object call();
+    }
+
+    public interface Dep102 {
+        Object call();
+    }
+
+    public interface Dep103 {
+        Object call();
+    }
+
+    public interface Dep104 {
+        Object call();
+    }
+
+    public interface Dep105 {
+        Object call();
+    }
+
+    public interface Dep106 {
+        Object call();
+    }
+
+    public interface Dep107 {
+        Object call();
+    }
+
+    public interface Dep108 {
+        Object call();
+    }
+
+    public interface Dep109 {
+        Object call();
+    }
+
+    public interface Dep110 {
+        Object call();
+    }
+
+    public interface Dep111 {
+        Object call();
+    }
+
+    public interface Dep112 {
+        Object call();
+    }
+
+    public interface Dep113 {
+        Object call();
+    }
+
+    public interface Dep114 {
+        Object call();
+    }
+
+    public interface Dep115 {
+        Object call();
+    }
+
+    public interface Dep116 {
+        Object call();
+    }
+
+    public interface Dep117 {
+        Object call();
+    }
+
+    public interface Dep118 {
+        Object call();
+    }
+
+    public interface Dep119 {
+        Object call();
+    }
+
+    public interface Dep120 {
+        Object call();
+    }
+
+    public interface Dep121 {
+        Object call();
+    }
+
+    public interface Dep122 {
+        Object call();
+    }
+
+    public interface Dep123 {
+        Object call();
+    }
+
+    public interface Dep124 {
+        Object call();
+    }
+
+    public interface Dep125 {
+        Object call();
+    }
+
+    public interface Dep126 {
+        Object call();
+    }
+
+    public interface Dep127 {
+        Object call();
+    }
+
+    public interface Dep128 {
+        Object call();
+    }
+
+    public interface Dep129 {
+        Object call();
+    }
+
+    public interface Dep130 {
+        Object call();
+    }
+
+    public interface Dep131 {
+        Object call();
+    }
+
+    public interface Dep132 {
+        Object call();
+    }
+
+    public interface Dep133 {
+        Object call();
+    }
+
+    public interface Dep134 {
+        Object call();
+    }
+
+    public interface Dep135 {
+        Object call();
+    }
+
+    public interface Dep136 {
+        Object call();
+    }
+
+    public interface Dep137 {
+        Object call();
+    }
+
+    public interface Dep138 {
+        Object call();
+    }
+
+    public interface Dep139 {
+        Object call();
+    }
+
+    public interface Dep140 {
+        Object call();
+    }
+
+    public interface Dep141 {
+        Object call();
+    }
+
+    public interface Dep142 {
+        Object call();
+    }
+
+    public interface Dep143 {
+        Object call();
+    }
+
+    public interface Dep144 {
+        Object call();
+    }
+
+    public interface Dep145 {
+        Object call();
+    }
+
+    public interface Dep146 {
+        Object call();
+    }
+
+    public interface Dep147 {
+        Object call();
+    }
+
+    public interface Dep148 {
+        Object call();
+    }
+
+    public interface Dep149 {
+        Object call();
+    }
+
+    public interface Dep150 {
+        Object call();
+    }
+
+    public interface Dep151 {
+        Object call();
+    }
+
+    public interface Dep152 {
+        Object call();
+    }
+
+    public interface Dep153 {
+        Object call();
+    }
+
+    public interface Dep154 {
+        Object call();
+    }
+
+    public interface Dep155 {
+        Object call();
+    }
+
+    public interface Dep156 {
+        Object call();
+    }
+
+    public interface Dep157 {
+        Object call();
+    }
+
+    public interface Dep158 {
+        Object call();
+    }
+
+    public interface Dep159 {
+        Object call();
+    }
+
+    public interface Dep160 {
+        Object call();
+    }
+
+    public interface Dep161 {
+        Object call();
+    }
+
+    public interface Dep162 {
+        Object call();
+    }
+
+    public interface Dep163 {
+        Object call();
+    }
+
+    public interface Dep164 {
+        Object call();
+    }
+
+    public interface Dep165 {
+        Object call();
+    }
+
+    public interface Dep166 {
+        Object call();
+    }
+
+    public interface Dep167 {
+        Object call();
+    }
+
+    public interface Dep168 {
+        Object call();
+    }
+
+    public interface Dep169 {
+        Object call();
+    }
+
+    public interface Dep170 {
+        Object call();
+    }
+
+    public interface Dep171 {
+        Object call();
+    }
+
+    public interface Dep172 {
+        Object call();
+    }
+
+    public interface Dep173 {
+        Object call();
+    }
+
+    public interface Dep174 {
+        Object call();
+    }
+
+    public interface Dep175 {
+        Object call();
+    }
+
+    public interface Dep176 {
+        Object call();
+    }
+
+    public interface Dep177 {
+        Object call();
+    }
+
+    public interface Dep178 {
+        Object call();
+    }
+
+    public interface Dep179 {
+        Object call();
+    }
+
+    public interface Dep180 {
+        Object call();
+    }
+
+    public interface Dep181 {
+        Object call();
+    }
+
+    public interface Dep182 {
+        Object call();
+    }
+
+    public interface Dep183 {
+        Object call();
+    }
+
+    public interface Dep184 {
+        Object call();
+    }
+
+    public interface Dep185 {
+        Object call();
+    }
+
+    public interface Dep186 {
+        Object call();
+    }
+
+    public interface Dep187 {
+        Object call();
+    }
+
+    public interface Dep188 {
+        Object call();
+    }
+
+    public interface Dep189 {
+        Object call();
+    }
+
+    public interface Dep190 {
+        Object call();
+    }
+
+    public interface Dep191 {
+        Object call();
+    }
+
+    public interface Dep192 {
+        Object call();
+    }
+
+    public interface Dep193 {
+        Object call();
+    }
+
+    public interface Dep194 {
+        Object call();
+    }
+
+    public interface Dep195 {
+        Object call();
+    }
+
+    public interface Dep196 {
+        Object call();
+    }
+
+    public interface Dep197 {
+        Object call();
+    }
+
+    public interface Dep198 {
+        Object call();
+    }
+
+    public interface Dep199 {
+        Object call();
+    }
+
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico.benchmarks;
+
+import com.picocontainer.injectors.AnnotatedFieldInjection;
+import com.picocontainer.injectors.AnnotatedMethodInjection;
+import com.thoughtworks.mockpico.CachedFieldInjection;
+import com.thoughtworks.mockpico.CachedMethodInjection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.inject.Inject;
+import java.util.concurrent.TimeUnit;
+
+import static com.picocontainer.injectors.Injectors.CDI;
+import static com.thoughtworks.mockpico.Mockpico.mockDepsFor;
+
+/**
+ * PicoContainer's annotated field and method injection against Mockpico's cached equivalents. Both
+ * go through withInjectionTypes(..), so neither takes make()'s InjectionPlan shortcut.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InjectionTypeBenchmark {
+
+    @Benchmark
+    public Object picoFieldInjection() {
+        return mockDepsFor(Controllers.Fields10.class)
+                .withInjectionTypes(CDI(), new AnnotatedFieldInjection(Inject.class))
+                .make();
+    }
+
+    @Benchmark
+    public Object cachedFieldInjection() {
+        return mockDepsFor(Controllers.Fields10.class)
+                .withInjectionTypes(CDI(), new CachedFieldInjection(Inject.class))
+                .make();
+    }
+
+    @Benchmark
+    public Object picoMethodInjection() {
+        return mockDepsFor(Controllers.Methods10.class)
+                .withInjectionTypes(CDI(), new AnnotatedMethodInjection(false, Inject.class))
+                .make();
+    }
+
+    @Benchmark
+    public Object cachedMethodInjection() {
+        return mockDepsFor(Controllers.Methods10.class)
+                .withInjectionTypes(CDI(), new CachedMethodInjection(Inject.class))
+                .make();
+    }
+
+}
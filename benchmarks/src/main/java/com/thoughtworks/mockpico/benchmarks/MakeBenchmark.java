@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico.benchmarks;
+
+import com.thoughtworks.mockpico.Journal;
+import com.thoughtworks.mockpico.Mockpico;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.thoughtworks.mockpico.Mockpico.mockDepsFor;
+
+/**
+ * Constructor injection, scaling with the number of dependencies. Field, method and setter injection of a fixed
+ * ten are in MemberInjectionBenchmark.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MakeBenchmark {
+
+    @Param({"1", "10", "50", "200"})
+    public int deps;
+
+    @Param({"false", "true"})
+    public boolean journal;
+
+    private Class<?> controller;
+
+    @Setup
+    public void setUp() {
+        switch (deps) {
+            case 1:
+                controller = Controllers.Ctor1.class;
+                break;
+            case 10:
+                controller = Controllers.Ctor10.class;
+                break;
+            case 50:
+                controller = Controllers.Ctor50.class;
+                break;
+            default:
+                controller = Controllers.Ctor200.class;
+        }
+    }
+
+    @Benchmark
+    public Object constructorInjection() {
+        return journalled(mockDepsFor(controller)).make();
+    }
+
+    private <T> Mockpico.JournalOrMakeNext<T> journalled(Mockpico.JournalOrMakeNext<T> next) {
+        return journal ? next.journalTo(new Journal()) : next;
+    }
+
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico.benchmarks;
+
+import com.thoughtworks.mockpico.MockPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.thoughtworks.mockpico.Mockpico.mockDepsFor;
+
+/**
+ * Recording mocks against stub-only ones, with and without deep stubs. chattyDependency is where
+ * stub-only pays off: a recording mock holds on to every one of the calls until it is reset.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MockPolicyBenchmark {
+
+    @Param({"recording", "stubOnly", "stubOnlyNoDeepStubs"})
+    public String policy;
+
+    private MockPolicy mocker;
+
+    @Setup
+    public void setUp() {
+        if (policy.equals("recording")) {
+            mocker = MockPolicy.recording();
+        } else if (policy.equals("stubOnly")) {
+            mocker = MockPolicy.stubOnly();
+        } else {
+            mocker = MockPolicy.stubOnly().withDeepStubs(0);
+        }
+    }
+
+    @Benchmark
+    public Object make() {
+        return mockDepsFor(Controllers.Ctor10.class).make(mocker);
+    }
+
+    @Benchmark
+    public Object chattyDependency() {
+        Deps.Dep0 dep = mocker.mock(Deps.Dep0.class);
+        for (int i = 0; i < 1000; i++) {
+            dep.call();
+        }
+        return dep;
+    }
+
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico.benchmarks;
+
+import com.thoughtworks.mockpico.Mockpico;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.thoughtworks.mockpico.Mockpico.mockDepsFor;
+
+/**
+ * A scenario loop: make (or take a prefetched) Ctor10, then do some work with it. With prefetching the next
+ * instance is made while the scenario runs, so only the work should be left in the figures. The stalls are
+ * printed at the end; many of them mean the scenario is quicker than one producer can make.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrefetchBenchmark {
+
+    private static final long SCENARIO_WORK = 20000;
+
+    private Mockpico.Prefetch<Controllers.Ctor10> prefetch;
+
+    @Setup
+    public void setUp() {
+        prefetch = mockDepsFor(Controllers.Ctor10.class).prefetching(4);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println(prefetch);
+        prefetch.close();
+    }
+
+    @Benchmark
+    public Object makePerScenario() {
+        Controllers.Ctor10 made = mockDepsFor(Controllers.Ctor10.class).make();
+        Blackhole.consumeCPU(SCENARIO_WORK);
+        return made;
+    }
+
+    @Benchmark
+    public Object prefetchedPerScenario() {
+        Controllers.Ctor10 made = prefetch.take();
+        Blackhole.consumeCPU(SCENARIO_WORK);
+        return made;
+    }
+
+}
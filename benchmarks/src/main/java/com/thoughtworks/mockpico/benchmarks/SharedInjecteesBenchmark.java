@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico.benchmarks;
+
+import com.thoughtworks.mockpico.SharedInjectees;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static com.thoughtworks.mockpico.Mockpico.mockDepsFor;
+import static com.thoughtworks.mockpico.benchmarks.Deps.*;
+
+/**
+ * Real injectees that cost something to build, as a grammar, a template engine and a large configuration do:
+ * rebuilt by withInjectees(..) for every make(), against built once into SharedInjectees.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SharedInjecteesBenchmark {
+
+    private SharedInjectees shared;
+
+    @Setup
+    public void setUp() {
+        shared = SharedInjectees.of(Grammar.class, TemplateEngine.class, Configuration.class);
+    }
+
+    @Benchmark
+    public Object rebuiltPerMake() {
+        return mockDepsFor(Reporting.class)
+                .withInjectees(Grammar.class, TemplateEngine.class, Configuration.class)
+                .make();
+    }
+
+    @Benchmark
+    public Object shared() {
+        return mockDepsFor(Reporting.class)
+                .withSharedInjectees(shared)
+                .make();
+    }
+
+    public static class Grammar {
+        private final List<Pattern> rules = new ArrayList<Pattern>();
+
+        public Grammar() {
+            for (int i = 0; i < 2000; i++) {
+                rules.add(Pattern.compile("(rule" + i + ")\\s*:=\\s*([a-z]+|\\d{1," + (i % 9 + 1) + "})*;"));
+            }
+        }
+    }
+
+    public static class TemplateEngine {
+        private final Map<String, String[]> templates = new HashMap<String, String[]>();
+
+        public TemplateEngine(Grammar grammar) {
+            for (int i = 0; i < 5000; i++) {
+                templates.put("template" + i, ("<p>${title" + i + "}</p><ul>${items}</ul><footer>${year}</footer>")
+                        .split("\\$\\{|\\}"));
+            }
+        }
+    }
+
+    public static class Configuration {
+        private final Map<String, String> settings = new HashMap<String, String>();
+
+        public Configuration() {
+            for (int i = 0; i < 100000; i++) {
+                settings.put("setting." + i, String.valueOf(i * 31));
+            }
+        }
+    }
+
+    public static class Reporting {
+        private final Object[] deps;
+
+        public Reporting(
+                TemplateEngine templates,
+                Configuration configuration,
+                Dep0 dep0,
+                Dep1 dep1,
+                Dep2 dep2,
+                Dep3 dep3,
+                Dep4 dep4) {
+            this.deps = new Object[] {templates, configuration, dep0, dep1, dep2, dep3, dep4};
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico.benchmarks;
+
+import com.thoughtworks.mockpico.StubbingProfile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.thoughtworks.mockpico.Mockpico.mockDepsFor;
+import static com.thoughtworks.mockpico.benchmarks.Deps.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Fifteen stubbings, five of them three deep, done by hand after each make() against replayed from a
+ * StubbingProfile recorded once.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StubbingProfileBenchmark {
+
+    private StubbingProfile profile;
+
+    @Setup
+    public void setUp() {
+        profile = StubbingProfile.record("storefront", stub(mockDepsFor(Storefront.class).rebindable().make()));
+    }
+
+    @Benchmark
+    public Object stubbedByHand() {
+        return stub(mockDepsFor(Storefront.class).rebindable().make());
+    }
+
+    @Benchmark
+    public Object replayed() {
+        return mockDepsFor(Storefront.class).withStubbing(profile).make();
+    }
+
+    private static Storefront stub(Storefront storefront) {
+        for (int i = 0; i < 5; i++) {
+            when(storefront.catalog.product("sku" + i).price().pence()).thenReturn(100 * i);
+            when(storefront.catalog.stock("sku" + i)).thenReturn(i);
+            when(storefront.pricing.discount("sku" + i)).thenReturn(i % 2 == 0 ? 10 : 0);
+        }
+        return storefront;
+    }
+
+    public interface Price {
+        int pence();
+    }
+
+    public interface Product {
+        Price price();
+    }
+
+    public interface Catalog {
+        Product product(String sku);
+
+        int stock(String sku);
+    }
+
+    public interface Pricing {
+        int discount(String sku);
+    }
+
+    public static class Storefront {
+        private final Catalog catalog;
+        private final Pricing pricing;
+        private final Object[] deps;
+
+        public Storefront(
+                Catalog catalog,
+                Pricing pricing,
+                Dep0 dep0,
+                Dep1 dep1,
+                Dep2 dep2,
+                Dep3 dep3,
+                Dep4 dep4) {
+            this.catalog = catalog;
+            this.pricing = pricing;
+            this.deps = new Object[] {dep0, dep1, dep2, dep3, dep4};
+        }
+    }
+
+}
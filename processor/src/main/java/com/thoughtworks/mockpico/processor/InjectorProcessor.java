@@ -0,0 +1,339 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes a <code>com.thoughtworks.mockpico.GeneratedInjector</code> for each class that has a field,
+ * method or constructor carrying one of the injection annotations Mockpico's default injection types
+ * honor. The injector calls the constructor, sets the fields and calls the methods directly, so it
+ * can only be written when all of them are reachable from the class's own package and there is
+ * exactly one public constructor. Classes that don't qualify are left to reflection, with a note.
+ */
+@SupportedAnnotationTypes({
+        "com.picocontainer.annotations.Inject",
+        "javax.inject.Inject",
+        "org.springframework.beans.factory.annotation.Autowired",
+        "com.google.inject.Inject"})
+public class InjectorProcessor extends AbstractProcessor {
+
+    /**
+     * Must match GeneratedInjector.SUFFIX - this module does not depend on Mockpico itself.
+     */
+    static final String SUFFIX = "$$MockpicoInjector";
+
+    private static final Set<String> INJECTION_ANNOTATIONS = new HashSet<String>(Arrays.asList(
+            InjectorProcessor.class.getAnnotation(SupportedAnnotationTypes.class).value()));
+
+    private final Set<String> written = new HashSet<String>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        Set<TypeElement> types = new LinkedHashSet<TypeElement>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                if (element.getEnclosingElement() instanceof TypeElement) {
+                    types.add((TypeElement) element.getEnclosingElement());
+                }
+            }
+        }
+        for (TypeElement type : types) {
+            String name = processingEnv.getElementUtils().getBinaryName(type).toString();
+            if (written.add(name)) {
+                Target target = new Target(type);
+                if (target.whyNot != null) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                            "No Mockpico injector for " + type.getQualifiedName() + ": " + target.whyNot, type);
+                } else {
+                    write(name, target);
+                }
+            }
+        }
+        // leave the annotations for any other processor
+        return false;
+    }
+
+    private void write(String binaryName, Target target) {
+        try {
+            Writer writer = processingEnv.getFiler().createSourceFile(binaryName + SUFFIX, target.type).openWriter();
+            try {
+                writer.write(target.source(binaryName.substring(binaryName.lastIndexOf('.') + 1) + SUFFIX));
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Mockpico injector for " + target.type.getQualifiedName() + " could not be written: " + e.getMessage(), target.type);
+        }
+    }
+
+    private static boolean isAnnotatedForInjection(Element element) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (INJECTION_ANNOTATIONS.contains(((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private class Target {
+
+        private final TypeElement type;
+        private final PackageElement pkg;
+        private ExecutableElement constructor;
+        private final List<VariableElement> fields = new ArrayList<VariableElement>();
+        private final List<ExecutableElement> methods = new ArrayList<ExecutableElement>();
+        private String whyNot;
+
+        private Target(TypeElement type) {
+            this.type = type;
+            this.pkg = processingEnv.getElementUtils().getPackageOf(type);
+            if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+                whyNot = "not a concrete class";
+            } else if (type.getNestingKind() != NestingKind.TOP_LEVEL
+                    && (type.getNestingKind() != NestingKind.MEMBER || !type.getModifiers().contains(Modifier.STATIC))) {
+                whyNot = "an inner, local or anonymous class";
+            } else if (!isVisible(type)) {
+                whyNot = "private";
+            } else {
+                findConstructor();
+                if (whyNot == null) {
+                    findFields();
+                }
+                if (whyNot == null) {
+                    findMethods();
+                }
+            }
+        }
+
+        private void findConstructor() {
+            for (ExecutableElement candidate : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+                if (candidate.getModifiers().contains(Modifier.PUBLIC)) {
+                    if (constructor != null) {
+                        // PicoContainer's greediest-satisfiable rules apply
+                        whyNot = "more than one public constructor";
+                        return;
+                    }
+                    constructor = candidate;
+                }
+            }
+            if (constructor == null) {
+                whyNot = "no public constructor";
+            }
+        }
+
+        private void findFields() {
+            List<TypeElement> hierarchy = new ArrayList<TypeElement>();
+            for (TypeElement c = type; c != null && !c.getQualifiedName().contentEquals("java.lang.Object"); c = superclassOf(c)) {
+                hierarchy.add(0, c);
+            }
+            for (TypeElement c : hierarchy) {
+                for (VariableElement field : ElementFilter.fieldsIn(c.getEnclosedElements())) {
+                    Set<Modifier> modifiers = field.getModifiers();
+                    if (modifiers.contains(Modifier.STATIC) || !isAnnotatedForInjection(field)) {
+                        continue;
+                    }
+                    if (modifiers.contains(Modifier.FINAL)) {
+                        whyNot = "field '" + field.getSimpleName() + "' is final";
+                        return;
+                    }
+                    if (!isReachable(c, modifiers)) {
+                        whyNot = "field '" + field.getSimpleName() + "' is not reachable from " + pkg.getQualifiedName();
+                        return;
+                    }
+                    fields.add(field);
+                }
+            }
+        }
+
+        private void findMethods() {
+            // public only, as Class.getMethods() would have it
+            for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+                Set<Modifier> modifiers = method.getModifiers();
+                if (modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.STATIC)
+                        && !modifiers.contains(Modifier.ABSTRACT) && isAnnotatedForInjection(method)) {
+                    methods.add(method);
+                }
+            }
+        }
+
+        private TypeElement superclassOf(TypeElement c) {
+            TypeMirror superclass = c.getSuperclass();
+            return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+
+        private boolean isVisible(TypeElement c) {
+            for (Element e = c; e instanceof TypeElement; e = e.getEnclosingElement()) {
+                Set<Modifier> modifiers = e.getModifiers();
+                if (modifiers.contains(Modifier.PRIVATE)
+                        || (!modifiers.contains(Modifier.PUBLIC) && !processingEnv.getElementUtils().getPackageOf(e).equals(pkg))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isReachable(TypeElement declaringClass, Set<Modifier> modifiers) {
+            if (modifiers.contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (declaringClass == type) {
+                return true;
+            }
+            return isVisible(declaringClass) && (modifiers.contains(Modifier.PUBLIC)
+                    || processingEnv.getElementUtils().getPackageOf(declaringClass).equals(pkg));
+        }
+
+        private String source(String simpleName) {
+            String typeName = type.getQualifiedName().toString();
+            StringBuilder sb = new StringBuilder();
+            if (!pkg.isUnnamed()) {
+                sb.append("package ").append(pkg.getQualifiedName()).append(";\n\n");
+            }
+            sb.append("// Generated by ").append(InjectorProcessor.class.getName()).append(" - do not edit\n");
+            sb.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+            sb.append("public final class ").append(simpleName)
+                    .append(" implements com.thoughtworks.mockpico.GeneratedInjector<").append(typeName).append("> {\n\n");
+
+            sb.append("    public java.lang.reflect.Constructor<").append(typeName).append("> getConstructor() throws NoSuchMethodException {\n");
+            sb.append("        return ").append(typeName).append(".class.getConstructor(").append(classLiterals(constructor)).append(");\n");
+            sb.append("    }\n\n");
+
+            sb.append("    public java.lang.reflect.Field[] getFields() throws NoSuchFieldException {\n");
+            sb.append("        return new java.lang.reflect.Field[] {\n");
+            for (VariableElement field : fields) {
+                sb.append("            ").append(erasure(field.getEnclosingElement().asType())).append(".class.getDeclaredField(\"")
+                        .append(field.getSimpleName()).append("\"),\n");
+            }
+            sb.append("        };\n");
+            sb.append("    }\n\n");
+
+            sb.append("    public java.lang.reflect.Method[] getMethods() throws NoSuchMethodException {\n");
+            sb.append("        return new java.lang.reflect.Method[] {\n");
+            for (ExecutableElement method : methods) {
+                String literals = classLiterals(method);
+                sb.append("            ").append(typeName).append(".class.getMethod(\"").append(method.getSimpleName()).append("\"")
+                        .append(literals.length() == 0 ? "" : ", ").append(literals).append("),\n");
+            }
+            sb.append("        };\n");
+            sb.append("    }\n\n");
+
+            sb.append("    public ").append(typeName).append(" newInstance(Object[] args) throws Exception {\n");
+            sb.append("        return new ").append(typeName).append("(").append(arguments(constructor)).append(");\n");
+            sb.append("    }\n\n");
+
+            sb.append("    public void setField(int index, ").append(typeName).append(" instance, Object value) {\n");
+            sb.append("        switch (index) {\n");
+            for (int i = 0; i < fields.size(); i++) {
+                VariableElement field = fields.get(i);
+                String receiver = field.getEnclosingElement() == type ? "instance"
+                        : "((" + erasure(field.getEnclosingElement().asType()) + ") instance)";
+                sb.append("            case ").append(i).append(": ").append(receiver).append(".").append(field.getSimpleName())
+                        .append(" = (").append(castTo(field.asType())).append(") value; return;\n");
+            }
+            sb.append("            default: throw new IndexOutOfBoundsException(\"No field \" + index);\n");
+            sb.append("        }\n");
+            sb.append("    }\n\n");
+
+            sb.append("    public Object invokeMethod(int index, ").append(typeName).append(" instance, Object[] args) throws Exception {\n");
+            sb.append("        switch (index) {\n");
+            for (int i = 0; i < methods.size(); i++) {
+                ExecutableElement method = methods.get(i);
+                String call = "instance." + method.getSimpleName() + "(" + arguments(method) + ")";
+                sb.append("            case ").append(i).append(": ");
+                if (method.getReturnType().getKind() == TypeKind.VOID) {
+                    sb.append(call).append("; return null;\n");
+                } else {
+                    sb.append("return ").append(call).append(";\n");
+                }
+            }
+            sb.append("            default: throw new IndexOutOfBoundsException(\"No method \" + index);\n");
+            sb.append("        }\n");
+            sb.append("    }\n\n");
+
+            sb.append("}\n");
+            return sb.toString();
+        }
+
+        private String classLiterals(ExecutableElement executable) {
+            StringBuilder sb = new StringBuilder();
+            for (VariableElement parameter : executable.getParameters()) {
+                sb.append(sb.length() == 0 ? "" : ", ").append(erasure(parameter.asType())).append(".class");
+            }
+            return sb.toString();
+        }
+
+        private String arguments(ExecutableElement executable) {
+            StringBuilder sb = new StringBuilder();
+            List<? extends VariableElement> parameters = executable.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                sb.append(i == 0 ? "" : ", ").append("(").append(castTo(parameters.get(i).asType())).append(") args[").append(i).append("]");
+            }
+            return sb.toString();
+        }
+
+        private String castTo(TypeMirror type) {
+            if (type.getKind().isPrimitive()) {
+                // unboxed on assignment
+                return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+            }
+            return erasure(type);
+        }
+
+        private String erasure(TypeMirror type) {
+            return processingEnv.getTypeUtils().erasure(type).toString();
+        }
+    }
+
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico.processor;
+
+import com.thoughtworks.mockpico.GeneratedInjector;
+import com.thoughtworks.mockpico.InjectionPlan;
+import com.thoughtworks.mockpico.Journal;
+import com.thoughtworks.mockpico.Mockpico;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InjectorProcessorTestCase {
+
+    private File dir;
+    private File plainDir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = sampleDir("mockpico-processor");
+        plainDir = sampleDir("mockpico-plain");
+    }
+
+    @Test
+    public void injectorConstructsAndInjectsWithoutReflection() throws Exception {
+        compile("Controller",
+                "package sample;\n" +
+                "import javax.inject.Inject;\n" +
+                "public class Controller extends Base {\n" +
+                "    private final CharSequence chars;\n" +
+                "    private final int count;\n" +
+                "    @Inject java.util.List<String> names;\n" +
+                "    private Object viaMethod;\n" +
+                "    public Controller(CharSequence chars, int count) { this.chars = chars; this.count = count; }\n" +
+                "    @Inject public void setViaMethod(Object viaMethod) { this.viaMethod = viaMethod; }\n" +
+                "    public String toString() { return chars + \",\" + count + \",\" + base + \",\" + names + \",\" + viaMethod; }\n" +
+                "}\n" +
+                "class Base {\n" +
+                "    @Inject protected String base;\n" +
+                "}\n");
+
+        GeneratedInjector<Object> injector = injectorFor("sample.Controller");
+        Field[] fields = injector.getFields();
+        assertEquals(2, fields.length);
+        assertEquals("base", fields[0].getName());
+        assertEquals("names", fields[1].getName());
+        Method[] methods = injector.getMethods();
+        assertEquals(1, methods.length);
+        assertEquals("setViaMethod", methods[0].getName());
+        assertEquals(2, injector.getConstructor().getParameterTypes().length);
+
+        Object controller = injector.newInstance(new Object[] {"r", 3});
+        injector.setField(0, controller, "b");
+        injector.setField(1, controller, java.util.Arrays.asList("n"));
+        injector.invokeMethod(0, controller, new Object[] {"m"});
+        assertEquals("r,3,b,[n],m", controller.toString());
+    }
+
+    @Test
+    public void classesWithPrivateInjectionPointsAreLeftToReflection() throws Exception {
+        compile("Secretive",
+                "package sample;\n" +
+                "import javax.inject.Inject;\n" +
+                "public class Secretive {\n" +
+                "    @Inject private String hidden;\n" +
+                "}\n");
+
+        assertTrue(new File(dir, "sample/Secretive.class").exists());
+        assertFalse(new File(dir, "sample/Secretive" + InjectorProcessor.SUFFIX + ".class").exists());
+    }
+
+    @Test
+    public void classesWithSeveralPublicConstructorsAreLeftToReflection() throws Exception {
+        compile("Ambiguous",
+                "package sample;\n" +
+                "import javax.inject.Inject;\n" +
+                "public class Ambiguous {\n" +
+                "    @Inject String injected;\n" +
+                "    public Ambiguous() {}\n" +
+                "    public Ambiguous(String s) {}\n" +
+                "}\n");
+
+        assertFalse(new File(dir, "sample/Ambiguous" + InjectorProcessor.SUFFIX + ".class").exists());
+    }
+
+    @Test
+    public void mockpicoMakesWithTheGeneratedInjectorAsItWouldWithReflection() throws Exception {
+        String source =
+                "package sample;\n" +
+                "import javax.inject.Inject;\n" +
+                "public class Shop {\n" +
+                "    public interface Catalog {}\n" +
+                "    public interface Basket {}\n" +
+                "    public interface Till {}\n" +
+                "    private final Catalog catalog;\n" +
+                "    @Inject Basket basket;\n" +
+                "    private Till till;\n" +
+                "    public Shop(Catalog catalog) { this.catalog = catalog; }\n" +
+                "    @Inject public void setTill(Till till) { this.till = till; }\n" +
+                "}\n";
+        compile("Shop", source);
+        compile(plainDir, "Shop", source, "-proc:none");
+        Class<?> generated = loaderFor(dir).loadClass("sample.Shop");
+        Class<?> reflective = loaderFor(plainDir).loadClass("sample.Shop");
+
+        Journal generatedJournal = new Journal();
+        Mockpico.mockDepsFor(generated).journalTo(generatedJournal).make();
+        Journal reflectiveJournal = new Journal();
+        Mockpico.mockDepsFor(reflective).journalTo(reflectiveJournal).make();
+
+        assertTrue(InjectionPlan.forType(generated).isGenerated());
+        assertFalse(InjectionPlan.forType(reflective).isGenerated());
+        assertTrue(generatedJournal.toString(), generatedJournal.toString().contains("Field being injected: 'basket'"));
+        assertEquals(withoutHashCodes(reflectiveJournal), withoutHashCodes(generatedJournal));
+    }
+
+    private static File sampleDir(String prefix) throws IOException {
+        File sampleDir = File.createTempFile(prefix, "");
+        sampleDir.delete();
+        new File(sampleDir, "sample").mkdirs();
+        return sampleDir;
+    }
+
+    private static String withoutHashCodes(Journal journal) {
+        return journal.toString().replaceAll("hashCode: \\d+", "hashCode: <HC>").replaceAll("@[0-9a-f]+", "@<HC>");
+    }
+
+    private void compile(String className, String source) throws IOException {
+        compile(dir, className, source, "-processor", InjectorProcessor.class.getName());
+    }
+
+    private static void compile(File dir, String className, String source, String... options) throws IOException {
+        File file = new File(dir, "sample/" + className + ".java");
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(source);
+        } finally {
+            writer.close();
+        }
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        List<String> args = new ArrayList<String>(Arrays.asList("-classpath", System.getProperty("java.class.path")));
+        args.addAll(Arrays.asList(options));
+        args.addAll(Arrays.asList("-d", dir.getPath(), "-s", dir.getPath(), file.getPath()));
+        int result = javac.run(null, null, errors, args.toArray(new String[args.size()]));
+        assertEquals(errors.toString(), 0, result);
+    }
+
+    private ClassLoader loaderFor(File classes) throws IOException {
+        return new URLClassLoader(new URL[] {classes.toURI().toURL()}, getClass().getClassLoader());
+    }
+
+    @SuppressWarnings("unchecked")
+    private GeneratedInjector<Object> injectorFor(String className) throws Exception {
+        return (GeneratedInjector<Object>) loaderFor(dir).loadClass(className + GeneratedInjector.SUFFIX).newInstance();
+    }
+
+}
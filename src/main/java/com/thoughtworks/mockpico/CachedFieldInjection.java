@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drop-in for PicoContainer's AnnotatedFieldInjection. Annotated fields, superclass first, are
+ * found once per class and set from then on without looking them up again. Without annotations
+ * given, the ones Mockpico's default injection types recognize are used:
+ *
+ * <pre>
+ * mockDepsFor(FooController.class).withInjectionTypes(CDI(), new CachedFieldInjection()).make();
+ * </pre>
+ */
+public class CachedFieldInjection extends CachedMemberInjection {
+
+    public CachedFieldInjection(Class<? extends Annotation>... annotations) {
+        super(annotations);
+    }
+
+    @Override
+    protected List<Field> discover(Class<?> type) {
+        List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            hierarchy.add(0, c);
+        }
+        List<Field> fields = new ArrayList<Field>();
+        for (Class<?> c : hierarchy) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && isAnnotatedForInjection(field)) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    @Override
+    protected Type[] dependencies(AccessibleObject member) {
+        return new Type[] {((Field) member).getGenericType()};
+    }
+
+    @Override
+    protected Object inject(AccessibleObject member, Object instance, Object[] args) throws IllegalAccessException {
+        ((Field) member).set(instance, args[0]);
+        return null;
+    }
+
+}
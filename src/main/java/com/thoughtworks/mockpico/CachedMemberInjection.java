@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import com.picocontainer.ComponentAdapter;
+import com.picocontainer.ComponentMonitor;
+import com.picocontainer.Injector;
+import com.picocontainer.LifecycleStrategy;
+import com.picocontainer.PicoCompositionException;
+import com.picocontainer.PicoContainer;
+import com.picocontainer.adapters.AbstractAdapter;
+import com.picocontainer.injectors.AbstractInjectionType;
+import com.picocontainer.parameters.ConstructorParameters;
+import com.picocontainer.parameters.FieldParameters;
+import com.picocontainer.parameters.MethodParameters;
+
+import java.lang.annotation.Annotation;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.WeakHashMap;
+
+/**
+ * Common ground for {@link CachedFieldInjection} and {@link CachedMethodInjection}: a class's
+ * annotated members are found and made accessible once, JVM-wide, rather than once per component
+ * adapter. The members are weakly keyed on the class but softly held, and hold their class: a class
+ * loader no longer used is let go once memory runs low.
+ */
+abstract class CachedMemberInjection extends AbstractInjectionType {
+
+    private static final Map<Class<?>, SoftReference<Map<String, AccessibleObject[]>>> MEMBERS =
+            new WeakHashMap<Class<?>, SoftReference<Map<String, AccessibleObject[]>>>();
+
+    protected final Class<? extends Annotation>[] annotations;
+    private final String cacheKey;
+
+    protected CachedMemberInjection(Class<? extends Annotation>[] annotations) {
+        this.annotations = annotations.length == 0 ? Mockpico.INJECTION_ANNOTATIONS : annotations;
+        StringBuilder sb = new StringBuilder(getClass().getName());
+        for (Class<? extends Annotation> annotation : this.annotations) {
+            sb.append(' ').append(annotation.getName());
+        }
+        this.cacheKey = sb.toString();
+    }
+
+    @Override
+    public <T> ComponentAdapter<T> createComponentAdapter(ComponentMonitor monitor, LifecycleStrategy lifecycle, Properties componentProps,
+                                                          Object key, Class<T> impl, ConstructorParameters constructorParams,
+                                                          FieldParameters[] fieldParams, MethodParameters[] methodParams) {
+        return new MemberInjector<T>(key, impl, monitor);
+    }
+
+    protected abstract List<? extends AccessibleObject> discover(Class<?> type);
+
+    protected abstract Type[] dependencies(AccessibleObject member);
+
+    protected abstract Object inject(AccessibleObject member, Object instance, Object[] args)
+            throws IllegalAccessException, InvocationTargetException;
+
+    protected boolean isAnnotatedForInjection(AccessibleObject member) {
+        for (Class<? extends Annotation> annotation : annotations) {
+            if (member.isAnnotationPresent(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private AccessibleObject[] members(Class<?> type) {
+        synchronized (MEMBERS) {
+            SoftReference<Map<String, AccessibleObject[]>> ref = MEMBERS.get(type);
+            Map<String, AccessibleObject[]> byInjectionType = ref == null ? null : ref.get();
+            if (byInjectionType == null) {
+                byInjectionType = new HashMap<String, AccessibleObject[]>();
+                MEMBERS.put(type, new SoftReference<Map<String, AccessibleObject[]>>(byInjectionType));
+            }
+            AccessibleObject[] members = byInjectionType.get(cacheKey);
+            if (members == null) {
+                List<? extends AccessibleObject> found = discover(type);
+                members = found.toArray(new AccessibleObject[found.size()]);
+                for (AccessibleObject member : members) {
+                    member.setAccessible(true);
+                }
+                byInjectionType.put(cacheKey, members);
+            }
+            return members;
+        }
+    }
+
+    private class MemberInjector<T> extends AbstractAdapter<T> implements Injector<T> {
+
+        private MemberInjector(Object key, Class<T> impl, ComponentMonitor monitor) {
+            super(key, impl, monitor);
+        }
+
+        @SuppressWarnings("unchecked")
+        public T getComponentInstance(PicoContainer container, Type into) {
+            // first in the list, so nothing else will construct it
+            T instance;
+            try {
+                Constructor<T> ctor = (Constructor<T>) getComponentImplementation().getConstructor();
+                long start = System.nanoTime();
+                instance = ctor.newInstance();
+                InjectionPlan.instantiated(currentMonitor(), container, this, ctor, instance, new Object[0], System.nanoTime() - start);
+            } catch (InvocationTargetException e) {
+                throw new PicoCompositionException(getComponentImplementation().getName() + " could not be instantiated", e.getCause());
+            } catch (Exception e) {
+                throw new PicoCompositionException(getComponentImplementation().getName() + " could not be instantiated", e);
+            }
+            decorateComponentInstance(container, into, instance);
+            return instance;
+        }
+
+        public Object decorateComponentInstance(PicoContainer container, Type into, T instance) {
+            return partiallyDecorateComponentInstance(container, into, instance, null);
+        }
+
+        public Object partiallyDecorateComponentInstance(PicoContainer container, Type into, T instance, Class<?> superclassPortion) {
+            for (AccessibleObject member : members(getComponentImplementation())) {
+                if (superclassPortion != null && ((Member) member).getDeclaringClass() != superclassPortion) {
+                    continue;
+                }
+                Object[] args = InjectionPlan.resolveAll(container, dependencies(member));
+                long start = System.nanoTime();
+                Object retVal;
+                try {
+                    retVal = inject(member, instance, args);
+                } catch (InvocationTargetException e) {
+                    throw new PicoCompositionException("'" + ((Member) member).getName() + "' could not be injected", e.getCause());
+                } catch (IllegalAccessException e) {
+                    throw new PicoCompositionException("'" + ((Member) member).getName() + "' could not be injected", e);
+                }
+                InjectionPlan.invoked(currentMonitor(), container, this, (Member) member, instance, System.nanoTime() - start, retVal, args);
+            }
+            return instance;
+        }
+
+        public void verify(PicoContainer container) {
+            // unsatisfied dependencies are mocked on demand, so there is nothing to check up front
+        }
+
+        public String getDescriptor() {
+            return CachedMemberInjection.this.getClass().getSimpleName() + "-";
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drop-in for PicoContainer's AnnotatedMethodInjection. Annotated public methods are found once per
+ * class and invoked from then on without looking them up again. Without annotations given, the ones
+ * Mockpico's default injection types recognize are used:
+ *
+ * <pre>
+ * mockDepsFor(FooController.class).withInjectionTypes(CDI(), new CachedMethodInjection()).make();
+ * </pre>
+ */
+public class CachedMethodInjection extends CachedMemberInjection {
+
+    public CachedMethodInjection(Class<? extends Annotation>... annotations) {
+        super(annotations);
+    }
+
+    @Override
+    protected List<Method> discover(Class<?> type) {
+        List<Method> methods = new ArrayList<Method>();
+        for (Method method : type.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers()) && isAnnotatedForInjection(method)) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    @Override
+    protected Type[] dependencies(AccessibleObject member) {
+        Method method = (Method) member;
+        Type[] generic = method.getGenericParameterTypes();
+        return generic.length == method.getParameterTypes().length ? generic : method.getParameterTypes();
+    }
+
+    @Override
+    protected Object inject(AccessibleObject member, Object instance, Object[] args) throws IllegalAccessException, InvocationTargetException {
+        return ((Method) member).invoke(instance, args);
+    }
+
+}
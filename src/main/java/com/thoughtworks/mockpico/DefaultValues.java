@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * What make() injects, instead of a mock, for dependency types that have a real value cheaper than a
+ * generated mock class and that behaves better: zero for boxed primitives and BigInteger/BigDecimal,
+ * "" for String, an empty array, the first constant of an enum and Optional.empty() where there is
+ * one. Empty immutable collections are there for the asking, as code under test is as likely to
+ * want a List verified as iterated. Providers are looked up by raw type, identity first, and are
+ * added without changing the instance they are added to:
+ *
+ * <pre>
+ * FooController fc = mockDepsFor(FooController.class)
+ *    .withDefaultValues(DefaultValues.standard().withEmptyCollections().with(Clock.class, fixedClock))
+ *    .make();
+ * </pre>
+ */
+public class DefaultValues {
+
+    public static interface Provider {
+        Object valueFor(Class<?> type);
+    }
+
+    private static final Provider EMPTY_ARRAY = new Provider() {
+        public Object valueFor(Class<?> type) {
+            return Array.newInstance(type.getComponentType(), 0);
+        }
+    };
+
+    private static final Provider FIRST_CONSTANT = new Provider() {
+        public Object valueFor(Class<?> type) {
+            Object[] constants = type.getEnumConstants();
+            return constants.length == 0 ? null : constants[0];
+        }
+    };
+
+    private static final DefaultValues STANDARD = new DefaultValues(new IdentityHashMap<Class<?>, Provider>())
+            .put(Integer.class, 0)
+            .put(Long.class, (long) 0)
+            .put(Double.class, (double) 0)
+            .put(Byte.class, (byte) 0)
+            .put(Short.class, (short) 0)
+            .put(Float.class, (float) 0)
+            .put(Boolean.class, false)
+            .put(Character.class, (char) 0)
+            .put(String.class, "")
+            .put(BigInteger.class, BigInteger.ZERO)
+            .put(BigDecimal.class, BigDecimal.ZERO)
+            .putOptional();
+
+    private final Map<Class<?>, Provider> providers;
+
+    private DefaultValues(Map<Class<?>, Provider> providers) {
+        this.providers = providers;
+    }
+
+    public static DefaultValues standard() {
+        return STANDARD;
+    }
+
+    public <T> DefaultValues with(Class<T> type, T value) {
+        return with(type, constant(value));
+    }
+
+    public DefaultValues with(Class<?> type, Provider provider) {
+        return new DefaultValues(new IdentityHashMap<Class<?>, Provider>(providers)).put(type, provider);
+    }
+
+    /**
+     * Collections.emptyList() and the like for Iterable, Collection, List, Set, SortedSet, Map and SortedMap,
+     * rather than mocks of them.
+     */
+    public DefaultValues withEmptyCollections() {
+        return new DefaultValues(new IdentityHashMap<Class<?>, Provider>(providers))
+                .put(Iterable.class, Collections.emptyList())
+                .put(Collection.class, Collections.emptyList())
+                .put(List.class, Collections.emptyList())
+                .put(Set.class, Collections.emptySet())
+                .put(SortedSet.class, Collections.unmodifiableSortedSet(new TreeSet<Object>()))
+                .put(Map.class, Collections.emptyMap())
+                .put(SortedMap.class, Collections.unmodifiableSortedMap(new TreeMap<Object, Object>()));
+    }
+
+    /**
+     * Null if the type should be mocked.
+     */
+    Provider providerFor(Class<?> type) {
+        Provider provider = providers.get(type);
+        if (provider != null) {
+            return provider;
+        } else if (type.isArray()) {
+            return EMPTY_ARRAY;
+        } else if (type.isEnum()) {
+            return FIRST_CONSTANT;
+        }
+        return null;
+    }
+
+    private DefaultValues put(Class<?> type, Object value) {
+        return put(type, constant(value));
+    }
+
+    private DefaultValues put(Class<?> type, Provider provider) {
+        providers.put(type, provider);
+        return this;
+    }
+
+    // java.util.Optional is final, so could never be mocked, but is only there on Java 8 and later
+    private DefaultValues putOptional() {
+        try {
+            Class<?> optional = Class.forName("java.util.Optional");
+            return put(optional, optional.getMethod("empty").invoke(null));
+        } catch (Exception e) {
+            return this;
+        }
+    }
+
+    private static Provider constant(final Object value) {
+        return new Provider() {
+            public Object valueFor(Class<?> type) {
+                return value;
+            }
+        };
+    }
+
+}
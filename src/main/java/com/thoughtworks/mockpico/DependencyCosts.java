@@ -0,0 +1,389 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import com.picocontainer.PicoCompositionException;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * How many dependencies each of a set of classes has, how many of those make() would mock, and what a make()
+ * of each costs - to find the classes most in need of decomposing. Injection points are found as make() finds
+ * them, from each class's InjectionPlan: the constructor, and fields and methods annotated with PicoContainer's,
+ * JSR330's, Spring's or Guice's annotation.
+ *
+ * <pre>
+ * DependencyCosts.Report costs = DependencyCosts.forPackage("com.foo.controllers").run();
+ * costs.sortedBy(DependencyCosts.Order.MOCKED).writeTo(new File("target/dependency-costs.csv"));
+ * </pre>
+ */
+public class DependencyCosts {
+
+    /**
+     * Worst first, for each.
+     */
+    public enum Order {
+        FAN_OUT, MOCKED, NANOS, MOCKS_CREATED, BYTES
+    }
+
+    private final List<Class<?>> targets;
+    private Mockpico.Mocker mocker = new Mockpico.ClassMocker();
+    private DefaultValues defaultValues = DefaultValues.standard();
+    private Object[] injectees = new Object[0];
+    private int makes = 5;
+
+    private DependencyCosts(List<Class<?>> targets) {
+        this.targets = targets;
+    }
+
+    public static DependencyCosts forTypes(Class<?>... types) {
+        return new DependencyCosts(Arrays.asList(types));
+    }
+
+    /**
+     * Concrete classes in the package and its sub-packages, found as WarmUp finds them.
+     */
+    public static DependencyCosts forPackage(String packageName) {
+        return forPackage(packageName, Thread.currentThread().getContextClassLoader());
+    }
+
+    public static DependencyCosts forPackage(String packageName, ClassLoader loader) {
+        return new DependencyCosts(WarmUp.scan(packageName, loader));
+    }
+
+    public DependencyCosts withMocker(Mockpico.Mocker mocker) {
+        this.mocker = mocker;
+        return this;
+    }
+
+    public DependencyCosts withDefaultValues(DefaultValues defaultValues) {
+        this.defaultValues = defaultValues;
+        return this;
+    }
+
+    /**
+     * Real components the tests hand in, so dependencies they satisfy aren't counted as mocked.
+     */
+    public DependencyCosts withInjectees(Object... injectees) {
+        this.injectees = injectees;
+        return this;
+    }
+
+    /**
+     * How many times each class is made. The first is reported on its own, as it pays for Mockito generating
+     * classes; the rest are the median.
+     */
+    public DependencyCosts withMakes(int makes) {
+        this.makes = Math.max(1, makes);
+        return this;
+    }
+
+    public Report run() {
+        List<Cost> costs = new ArrayList<Cost>(targets.size());
+        for (Class<?> target : targets) {
+            costs.add(measure(target));
+        }
+        return new Report(costs);
+    }
+
+    private Cost measure(Class<?> target) {
+        InjectionPlan plan = InjectionPlan.forType(target);
+        List<Type> dependencies = new ArrayList<Type>();
+        Constructor<?> constructor = plan.getConstructor();
+        if (constructor != null) {
+            dependencies.addAll(Arrays.asList(plan.getConstructorParameterTypes()));
+        } else {
+            // PicoContainer tries the greediest first
+            Constructor<?> greediest = null;
+            for (Constructor<?> candidate : target.getConstructors()) {
+                if (greediest == null || candidate.getParameterTypes().length > greediest.getParameterTypes().length) {
+                    greediest = candidate;
+                }
+            }
+            if (greediest != null) {
+                dependencies.addAll(Arrays.asList(greediest.getGenericParameterTypes()));
+            }
+        }
+        dependencies.addAll(Arrays.asList(plan.getFieldTypes()));
+        for (Type[] parameterTypes : plan.getMethodParameterTypes()) {
+            dependencies.addAll(Arrays.asList(parameterTypes));
+        }
+        Set<Type> distinct = new LinkedHashSet<Type>(dependencies);
+        int mocked = 0;
+        for (Type dependency : distinct) {
+            if (wouldBeMocked(dependency)) {
+                mocked++;
+            }
+        }
+        Cost cost = new Cost(target, dependencies.size(), distinct.size(), mocked);
+        try {
+            long[] nanos = new long[makes];
+            long[] bytes = new long[makes];
+            for (int i = 0; i < makes; i++) {
+                Journal journal = new Journal();
+                long allocated = UsageReport.allocatedBytes();
+                long start = System.nanoTime();
+                Mockpico.mockDepsFor(target).withInjectees(injectees).withDefaultValues(defaultValues)
+                        .journalTo(journal).make(mocker);
+                nanos[i] = System.nanoTime() - start;
+                bytes[i] = allocated < 0 ? -1 : UsageReport.allocatedBytes() - allocated;
+                if (i == 0) {
+                    for (Journal.Event event : journal.getEvents()) {
+                        if (event.getKind() == Journal.Kind.MOCKED) {
+                            cost.mocksCreated++;
+                        }
+                    }
+                }
+            }
+            cost.coldNanos = nanos[0];
+            cost.nanos = makes == 1 ? nanos[0] : median(nanos);
+            cost.bytes = makes == 1 ? bytes[0] : median(bytes);
+        } catch (RuntimeException e) {
+            cost.failure = e.toString();
+        }
+        return cost;
+    }
+
+    private boolean wouldBeMocked(Type dependency) {
+        Class<?> raw = dependency instanceof ParameterizedType
+                ? (Class<?>) ((ParameterizedType) dependency).getRawType()
+                : dependency instanceof Class ? (Class<?>) dependency : null;
+        if (raw == null || raw.isPrimitive() || defaultValues.providerFor(raw) != null) {
+            return false;
+        }
+        for (Object injectee : injectees) {
+            Class<?> injected = injectee instanceof Class ? (Class<?>) injectee : injectee.getClass();
+            if (raw.isAssignableFrom(injected)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // of all but the first, cold, make
+    private static long median(long[] values) {
+        long[] warm = new long[values.length - 1];
+        System.arraycopy(values, 1, warm, 0, warm.length);
+        Arrays.sort(warm);
+        return warm[warm.length / 2];
+    }
+
+    /**
+     * -1 for a figure that couldn't be had: all of the make() figures for a class that couldn't be made, and bytes
+     * on a JVM that doesn't count them.
+     */
+    public static class Cost {
+        private final Class<?> type;
+        private final int injectionPoints;
+        private final int fanOut;
+        private final int mocked;
+        private int mocksCreated;
+        private long coldNanos = -1;
+        private long nanos = -1;
+        private long bytes = -1;
+        private String failure;
+
+        private Cost(Class<?> type, int injectionPoints, int fanOut, int mocked) {
+            this.type = type;
+            this.injectionPoints = injectionPoints;
+            this.fanOut = fanOut;
+            this.mocked = mocked;
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        /**
+         * Constructor parameters, annotated fields and annotated method parameters.
+         */
+        public int getInjectionPoints() {
+            return injectionPoints;
+        }
+
+        /**
+         * Distinct dependency types.
+         */
+        public int getFanOut() {
+            return fanOut;
+        }
+
+        /**
+         * Distinct dependency types make() would mock, rather than use an injectee or a default value for.
+         */
+        public int getMocked() {
+            return mocked;
+        }
+
+        public int getMocksCreated() {
+            return failure == null ? mocksCreated : -1;
+        }
+
+        public long getColdNanos() {
+            return coldNanos;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Why make() failed, or null.
+         */
+        public String getFailure() {
+            return failure;
+        }
+
+        private long figure(Order order) {
+            switch (order) {
+                case FAN_OUT:
+                    return fanOut;
+                case MOCKED:
+                    return mocked;
+                case NANOS:
+                    return nanos;
+                case MOCKS_CREATED:
+                    return getMocksCreated();
+                default:
+                    return bytes;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return type.getName() + ": " + fanOut + " dependencies (" + mocked + " mocked), make() "
+                    + (failure == null ? nanos / 1000 + "us" : "failed: " + failure);
+        }
+    }
+
+    public static class Report {
+
+        private final List<Cost> costs;
+
+        private Report(List<Cost> costs) {
+            this.costs = Collections.unmodifiableList(costs);
+        }
+
+        public List<Cost> getCosts() {
+            return costs;
+        }
+
+        public Report sortedBy(final Order order) {
+            List<Cost> sorted = new ArrayList<Cost>(costs);
+            Collections.sort(sorted, new Comparator<Cost>() {
+                public int compare(Cost one, Cost two) {
+                    long first = one.figure(order);
+                    long second = two.figure(order);
+                    return first < second ? 1 : (first == second ? one.type.getName().compareTo(two.type.getName()) : -1);
+                }
+            });
+            return new Report(sorted);
+        }
+
+        public String toCsv() {
+            StringBuilder csv = new StringBuilder("type,injectionPoints,fanOut,mocked,mocksCreated,coldNanos,nanos,bytes,failure\n");
+            for (Cost cost : costs) {
+                csv.append(cost.type.getName()).append(',').append(cost.injectionPoints).append(',')
+                        .append(cost.fanOut).append(',').append(cost.mocked).append(',')
+                        .append(cost.getMocksCreated()).append(',').append(cost.coldNanos).append(',')
+                        .append(cost.nanos).append(',').append(cost.bytes).append(',')
+                        .append(cost.failure == null ? "" : '"' + cost.failure.replace("\"", "\"\"") + '"').append('\n');
+            }
+            return csv.toString();
+        }
+
+        public String toJson() {
+            StringBuilder json = new StringBuilder("[");
+            String separator = "\n";
+            for (Cost cost : costs) {
+                json.append(separator).append("  {\"type\": \"").append(cost.type.getName())
+                        .append("\", \"injectionPoints\": ").append(cost.injectionPoints)
+                        .append(", \"fanOut\": ").append(cost.fanOut)
+                        .append(", \"mocked\": ").append(cost.mocked)
+                        .append(", \"mocksCreated\": ").append(cost.getMocksCreated())
+                        .append(", \"coldNanos\": ").append(cost.coldNanos)
+                        .append(", \"nanos\": ").append(cost.nanos)
+                        .append(", \"bytes\": ").append(cost.bytes)
+                        .append(", \"failure\": ").append(cost.failure == null ? "null" : '"' + escape(cost.failure) + '"')
+                        .append('}');
+                separator = ",\n";
+            }
+            return json.append(separator.equals("\n") ? "]\n" : "\n]\n").toString();
+        }
+
+        private static String escape(String text) {
+            StringBuilder escaped = new StringBuilder(text.length());
+            for (char c : text.toCharArray()) {
+                if (c == '"' || c == '\\') {
+                    escaped.append('\\').append(c);
+                } else if (c < ' ') {
+                    escaped.append(String.format("\\u%04x", (int) c));
+                } else {
+                    escaped.append(c);
+                }
+            }
+            return escaped.toString();
+        }
+
+        /**
+         * CSV for a .csv file, otherwise JSON.
+         */
+        public void writeTo(File file) {
+            try {
+                FileWriter writer = new FileWriter(file);
+                try {
+                    writer.write(file.getName().endsWith(".csv") ? toCsv() : toJson());
+                } finally {
+                    writer.close();
+                }
+            } catch (IOException e) {
+                throw new PicoCompositionException("Dependency costs could not be written to " + file, e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder();
+            for (Cost cost : costs) {
+                report.append(cost).append('\n');
+            }
+            return report.toString();
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * Written at compile time by mockpico-processor, one per class with annotated injection points, and
+ * named after that class plus {@link #SUFFIX}. When one is on the classpath the InjectionPlan for
+ * the class calls it instead of Constructor.newInstance(..), Field.set(..) and Method.invoke(..).
+ * The members are still handed out so the Journal reads the same either way.
+ */
+public interface GeneratedInjector<T> {
+
+    String SUFFIX = "$$MockpicoInjector";
+
+    Constructor<T> getConstructor() throws NoSuchMethodException;
+
+    Field[] getFields() throws NoSuchFieldException;
+
+    Method[] getMethods() throws NoSuchMethodException;
+
+    T newInstance(Object[] args) throws Exception;
+
+    void setField(int index, T instance, Object value);
+
+    Object invokeMethod(int index, T instance, Object[] args) throws Exception;
+
+}
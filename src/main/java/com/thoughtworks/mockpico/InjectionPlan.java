@@ -0,0 +1,464 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import com.picocontainer.ComponentAdapter;
+import com.picocontainer.ComponentMonitor;
+import com.picocontainer.MutablePicoContainer;
+import com.picocontainer.PicoCompositionException;
+import com.picocontainer.PicoContainer;
+
+import java.lang.annotation.Annotation;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The constructor, annotated fields and annotated methods that Mockpico's default injection types
+ * would use for a class, resolved once per class and shared JVM-wide. Plans are weakly keyed on the
+ * class, but softly held, and a plan holds its class's members: a class loader no longer used is
+ * let go once memory runs low, or after clearCache().
+ * <p>
+ * A plan is only used where it finds what PicoContainer would, and injects as it would: one public
+ * constructor, public annotated methods, and dependencies resolved by the container, its monitor
+ * mocking what the container doesn't have. Anything else is left to PicoContainer.
+ */
+public class InjectionPlan {
+
+    private static final Map<Class<?>, SoftReference<InjectionPlan>> PLANS =
+            Collections.synchronizedMap(new WeakHashMap<Class<?>, SoftReference<InjectionPlan>>());
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    private static final Map<Class<?>, Class<?>> BOXES = new HashMap<Class<?>, Class<?>>();
+
+    static {
+        BOXES.put(int.class, Integer.class);
+        BOXES.put(long.class, Long.class);
+        BOXES.put(double.class, Double.class);
+        BOXES.put(byte.class, Byte.class);
+        BOXES.put(short.class, Short.class);
+        BOXES.put(float.class, Float.class);
+        BOXES.put(boolean.class, Boolean.class);
+        BOXES.put(char.class, Character.class);
+    }
+
+    private final Class<?> type;
+    private final Constructor<?> constructor;
+    private final Type[] constructorParameterTypes;
+    private final Field[] fields;
+    private final Type[] fieldTypes;
+    private final Method[] methods;
+    private final Type[][] methodParameterTypes;
+    private final boolean usable;
+    private final GeneratedInjector<Object> injector;
+
+    @SuppressWarnings("unchecked")
+    private InjectionPlan(Class<?> type, Constructor<?> constructor, List<Field> fields, List<Method> methods, GeneratedInjector<?> injector) {
+        this.type = type;
+        this.constructor = constructor;
+        this.injector = (GeneratedInjector<Object>) injector;
+        this.constructorParameterTypes = constructor == null ? null : parameterTypes(constructor.getParameterTypes(), constructor.getGenericParameterTypes());
+        this.fields = fields.toArray(new Field[fields.size()]);
+        this.fieldTypes = new Type[this.fields.length];
+        for (int i = 0; i < this.fields.length; i++) {
+            fieldTypes[i] = this.fields[i].getGenericType();
+        }
+        this.methods = methods.toArray(new Method[methods.size()]);
+        this.methodParameterTypes = new Type[this.methods.length][];
+        for (int i = 0; i < this.methods.length; i++) {
+            methodParameterTypes[i] = parameterTypes(this.methods[i].getParameterTypes(), this.methods[i].getGenericParameterTypes());
+        }
+        boolean resolvable = constructor != null && resolvable(constructorParameterTypes) && resolvable(fieldTypes);
+        for (Type[] types : methodParameterTypes) {
+            resolvable = resolvable && resolvable(types);
+        }
+        this.usable = resolvable;
+    }
+
+    public static InjectionPlan forType(Class<?> type) {
+        SoftReference<InjectionPlan> ref = PLANS.get(type);
+        InjectionPlan plan = ref == null ? null : ref.get();
+        if (plan != null) {
+            HITS.incrementAndGet();
+            return plan;
+        }
+        MISSES.incrementAndGet();
+        plan = discover(type);
+        PLANS.put(type, new SoftReference<InjectionPlan>(plan));
+        return plan;
+    }
+
+    public static long cacheHits() {
+        return HITS.get();
+    }
+
+    public static long cacheMisses() {
+        return MISSES.get();
+    }
+
+    public static void clearCache() {
+        PLANS.clear();
+    }
+
+    private static InjectionPlan discover(Class<?> type) {
+        GeneratedInjector<?> injector = generatedInjector(type);
+        if (injector != null) {
+            try {
+                return new InjectionPlan(type, injector.getConstructor(), Arrays.asList(injector.getFields()),
+                        Arrays.asList(injector.getMethods()), injector);
+            } catch (NoSuchMethodException e) {
+                // generated against an older version of the class - scan it instead
+            } catch (NoSuchFieldException e) {
+                // ditto
+            }
+        }
+        Constructor<?> constructor = null;
+        int modifiers = type.getModifiers();
+        boolean innerClass = type.getEnclosingClass() != null && !Modifier.isStatic(modifiers);
+        if (!type.isInterface() && !Modifier.isAbstract(modifiers) && !innerClass) {
+            Constructor<?>[] constructors = type.getConstructors();
+            // more than one candidate and PicoContainer's greediest-satisfiable rules apply
+            if (constructors.length == 1) {
+                constructor = accessible(constructors[0]);
+            }
+        }
+        List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            hierarchy.add(0, c);
+        }
+        List<Field> fields = new ArrayList<Field>();
+        for (Class<?> c : hierarchy) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && isAnnotatedForInjection(field)) {
+                    fields.add(accessible(field));
+                }
+            }
+        }
+        List<Method> methods = new ArrayList<Method>();
+        for (Method method : type.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers()) && isAnnotatedForInjection(method)) {
+                methods.add(accessible(method));
+            }
+        }
+        for (Class<?> c : hierarchy) {
+            for (Method method : c.getDeclaredMethods()) {
+                // getMethods() doesn't see these, and which of them PicoContainer would inject is its own affair
+                if (!Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers())
+                        && isAnnotatedForInjection(method)) {
+                    constructor = null;
+                }
+            }
+        }
+        return new InjectionPlan(type, constructor, fields, methods, null);
+    }
+
+    private static GeneratedInjector<?> generatedInjector(Class<?> type) {
+        if (type.isInterface() || type.isArray() || type.isPrimitive()) {
+            return null;
+        }
+        try {
+            Class<?> injector = Class.forName(type.getName() + GeneratedInjector.SUFFIX, true, type.getClassLoader());
+            return GeneratedInjector.class.isAssignableFrom(injector) ? (GeneratedInjector<?>) injector.newInstance() : null;
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (InstantiationException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    private static boolean isAnnotatedForInjection(AccessibleObject member) {
+        for (Class<? extends Annotation> annotation : Mockpico.INJECTION_ANNOTATIONS) {
+            if (member.isAnnotationPresent(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <A extends AccessibleObject> A accessible(A member) {
+        member.setAccessible(true);
+        return member;
+    }
+
+    private static boolean resolvable(Type[] types) {
+        for (Type type : types) {
+            if (!(type instanceof Class || type instanceof ParameterizedType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Type[] parameterTypes(Class<?>[] raw, Type[] generic) {
+        // synthetic parameters (enums, inner classes) leave the generic signature shorter
+        return generic.length == raw.length ? generic : raw;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * False when PicoContainer has to choose among constructors, there is nothing to construct, an
+     * annotated method isn't public, or an injection point is typed with a type variable or generic array.
+     */
+    public boolean isUsable() {
+        return usable;
+    }
+
+    public Constructor<?> getConstructor() {
+        return constructor;
+    }
+
+    public Type[] getConstructorParameterTypes() {
+        return constructorParameterTypes;
+    }
+
+    public Field[] getFields() {
+        return fields;
+    }
+
+    public Method[] getMethods() {
+        return methods;
+    }
+
+    public Type[] getFieldTypes() {
+        return fieldTypes;
+    }
+
+    public Type[][] getMethodParameterTypes() {
+        return methodParameterTypes;
+    }
+
+    /**
+     * True when a mockpico-processor generated injector does the constructing and injecting.
+     */
+    public boolean isGenerated() {
+        return injector != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T make(MutablePicoContainer pico, ComponentMonitor monitor) {
+        Constructor<T> ctor = (Constructor<T>) constructor;
+        Object[] args = resolveAll(pico, constructorParameterTypes);
+        long start = System.nanoTime();
+        T instance;
+        try {
+            instance = injector != null ? (T) injector.newInstance(args) : ctor.newInstance(args);
+        } catch (InvocationTargetException e) {
+            monitor.instantiationFailed(pico, null, ctor, e);
+            throw failed(e.getCause());
+        } catch (IllegalAccessException e) {
+            monitor.instantiationFailed(pico, null, ctor, e);
+            throw new PicoCompositionException(e);
+        } catch (Exception e) {
+            // a generated injector lets the constructor's own exception through unwrapped
+            monitor.instantiationFailed(pico, null, ctor, e);
+            throw failed(e);
+        }
+        instantiated(monitor, pico, (ComponentAdapter<T>) null, ctor, instance, args, System.nanoTime() - start);
+        for (int i = 0; i < fields.length; i++) {
+            injectField(pico, monitor, instance, i);
+        }
+        for (int i = 0; i < methods.length; i++) {
+            injectMethod(pico, monitor, instance, i);
+        }
+        return instance;
+    }
+
+    /**
+     * Injects again, as make() did, the fields and methods that would take a dependency of the given type.
+     */
+    void reinject(MutablePicoContainer pico, ComponentMonitor monitor, Object instance, Class<?> dependencyType) {
+        for (int i = 0; i < fields.length; i++) {
+            if (takes(fieldTypes[i], dependencyType)) {
+                injectField(pico, monitor, instance, i);
+            }
+        }
+        for (int i = 0; i < methods.length; i++) {
+            for (Type parameterType : methodParameterTypes[i]) {
+                if (takes(parameterType, dependencyType)) {
+                    injectMethod(pico, monitor, instance, i);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * The constructor parameter, field and method parameter types a dependency of the given type would be
+     * injected into, each once.
+     */
+    List<Type> typesTaking(Class<?> dependencyType) {
+        List<Type> all = new ArrayList<Type>(Arrays.asList(constructorParameterTypes));
+        all.addAll(Arrays.asList(fieldTypes));
+        for (Type[] types : methodParameterTypes) {
+            all.addAll(Arrays.asList(types));
+        }
+        List<Type> taking = new ArrayList<Type>();
+        for (Type type : all) {
+            if (takes(type, dependencyType) && !taking.contains(type)) {
+                taking.add(type);
+            }
+        }
+        return taking;
+    }
+
+    boolean constructorTakes(Class<?> dependencyType) {
+        for (Type type : constructorParameterTypes) {
+            if (takes(type, dependencyType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean takes(Type type, Class<?> dependencyType) {
+        Class<?> raw = type instanceof ParameterizedType ? (Class<?>) ((ParameterizedType) type).getRawType() : (Class<?>) type;
+        Class<?> boxed = BOXES.get(raw);
+        return (boxed == null ? raw : boxed).isAssignableFrom(dependencyType);
+    }
+
+    private void injectField(PicoContainer pico, ComponentMonitor monitor, Object instance, int i) {
+        Object value = resolve(pico, fieldTypes[i]);
+        long start = System.nanoTime();
+        try {
+            if (injector != null) {
+                injector.setField(i, instance, value);
+            } else {
+                fields[i].set(instance, value);
+            }
+        } catch (IllegalAccessException e) {
+            monitor.invocationFailed(fields[i], instance, e);
+            throw new PicoCompositionException(e);
+        }
+        invoked(monitor, pico, null, fields[i], instance, System.nanoTime() - start, null, value);
+    }
+
+    private void injectMethod(PicoContainer pico, ComponentMonitor monitor, Object instance, int i) {
+        Object[] methodArgs = resolveAll(pico, methodParameterTypes[i]);
+        long start = System.nanoTime();
+        Object retVal;
+        try {
+            retVal = injector != null ? injector.invokeMethod(i, instance, methodArgs) : methods[i].invoke(instance, methodArgs);
+        } catch (InvocationTargetException e) {
+            monitor.invocationFailed(methods[i], instance, e);
+            throw failed(e.getCause());
+        } catch (Exception e) {
+            // a generated injector lets the method's own exception through unwrapped
+            monitor.invocationFailed(methods[i], instance, e);
+            throw failed(e);
+        }
+        invoked(monitor, pico, null, methods[i], instance, System.nanoTime() - start, retVal, methodArgs);
+    }
+
+    /**
+     * What PicoContainer's injectors throw for a constructor or method that threw: runtime exceptions and
+     * errors as they are, anything else wrapped.
+     */
+    private static RuntimeException failed(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new PicoCompositionException(cause);
+    }
+
+    /**
+     * Tells the monitor of an instantiation timed with nanoTime(), in nanoseconds if it takes them.
+     */
+    static <T> void instantiated(ComponentMonitor monitor, PicoContainer pico, ComponentAdapter<T> componentAdapter,
+                                 Constructor<T> ctor, Object instance, Object[] args, long nanos) {
+        if (monitor instanceof NanoTimedMonitor) {
+            ((NanoTimedMonitor) monitor).instantiatedIn(pico, componentAdapter, ctor, instance, args, nanos);
+        } else {
+            monitor.instantiated(pico, componentAdapter, ctor, instance, args, TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+    }
+
+    /**
+     * Tells the monitor of a field or method injection timed with nanoTime(), in nanoseconds if it takes them.
+     */
+    static void invoked(ComponentMonitor monitor, PicoContainer pico, ComponentAdapter<?> componentAdapter,
+                        Member member, Object instance, long nanos, Object retVal, Object... args) {
+        if (monitor instanceof NanoTimedMonitor) {
+            ((NanoTimedMonitor) monitor).invokedIn(pico, componentAdapter, member, instance, nanos, retVal, args);
+        } else {
+            monitor.invoked(pico, componentAdapter, member, instance, TimeUnit.NANOSECONDS.toMillis(nanos), retVal, args);
+        }
+    }
+
+    static Object[] resolveAll(PicoContainer pico, Type[] types) {
+        Object[] resolved = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            resolved[i] = resolve(pico, types[i]);
+        }
+        return resolved;
+    }
+
+    static Object resolve(PicoContainer pico, Type type) {
+        if (type instanceof Class) {
+            Class<?> boxed = BOXES.get(type);
+            return pico.getComponent(boxed == null ? (Class<?>) type : boxed);
+        }
+        // as for PicoContainer, a generic type is only satisfied by a component registered under it; otherwise the
+        // monitor is told no component was found, and mocks it
+        return pico.getComponent((Object) type);
+    }
+
+    /**
+     * Whether the container, or one of its parents (such as SharedInjectees'), has a component of the type.
+     */
+    static boolean hasAdapterFor(PicoContainer pico, Class<?> type) {
+        for (PicoContainer container = pico; container != null; container = container.getParent()) {
+            if (!container.getComponentAdapters(type).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -21,54 +21,254 @@
  */
 package com.thoughtworks.mockpico;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
 import java.lang.reflect.Member;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Records what was injected, as events, during a make(). Nothing is rendered to text until toString().
+ * Injections and mock creations carry how long they took, see getSlowest(int) and TimingReport.
+ */
 public class Journal {
 
-    private final List<Object> things = new ArrayList<Object>();
+    /**
+     * What make() uses when no journal was asked for: it records nothing and allocates nothing.
+     */
+    static final Journal NONE = new Journal() {
+        @Override
+        public void append(Event event) {
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public void append(Object thing) {
+        }
+
+        @Override
+        void constructorInjected(Constructor<?> constructor, Object[] args, long nanos) {
+        }
+
+        @Override
+        void methodInjected(Method method, Object[] args, long nanos) {
+        }
 
+        @Override
+        void fieldInjected(Member field, Object value, long nanos) {
+        }
+
+        @Override
+        void mockCreated(Class<?> type, Object mock, long nanos) {
+        }
+
+        @Override
+        void mockMaterialized(Class<?> type, long nanos) {
+        }
+
+        @Override
+        void rebound(Class<?> type, Object value, long nanos) {
+        }
+    };
+
+    public enum Kind {
+        CONSTRUCTOR, ARGUMENT, FIELD, METHOD, MOCKED, MATERIALIZED, REBOUND,
+        /** Appended by append(Object): the value is rendered as it is. */
+        OTHER
+    }
+
+    private static final Comparator<Event> SLOWEST_FIRST = new Comparator<Event>() {
+        public int compare(Event one, Event two) {
+            return one.nanos < two.nanos ? 1 : (one.nanos == two.nanos ? 0 : -1);
+        }
+    };
+
+    private final List<Event> events = new ArrayList<Event>();
+
+    public synchronized void append(Event event) {
+        events.add(event);
+    }
+
+    /**
+     * @deprecated append an Event instead. The thing is kept as an OTHER event and rendered with its toString().
+     */
+    @Deprecated
     public void append(Object thing) {
-        things.add(thing);
+        append(new Event(Kind.OTHER, null, -1, thing, null, 0));
     }
 
-    static class Arg {
-        private final int i;
-        private final Class<?> type;
-        private final Object o;
+    public synchronized List<Event> getEvents() {
+        return new ArrayList<Event>(events);
+    }
 
-        public Arg(int i, Class<?> type, Object o) {
-            this.i = i;
-            this.type = type;
-            this.o = o;
+    /**
+     * Constructor, field and method injections, mock creations and lazy mock materializations, slowest first.
+     */
+    public synchronized List<Event> getSlowest(int max) {
+        List<Event> timed = new ArrayList<Event>();
+        for (Event event : events) {
+            if (event.kind != Kind.ARGUMENT && event.kind != Kind.OTHER) {
+                timed.add(event);
+            }
         }
+        Collections.sort(timed, SLOWEST_FIRST);
+        return timed.size() > max ? timed.subList(0, max) : timed;
+    }
 
-        public String toString() {
-            return "  arg[" + i + "] type:" + type + ", with: " + o.toString() + "\n";
+    public String slowestToString(int max) {
+        StringBuilder sb = new StringBuilder();
+        for (Event event : getSlowest(max)) {
+            sb.append(String.format("%10.3fms %s%n", event.nanos / 1000000.0, event.describe()));
         }
+        return sb.toString();
+    }
+
+    void constructorInjected(Constructor<?> constructor, Object[] args, long nanos) {
+        append(new Event(Kind.CONSTRUCTOR, constructor, -1, null, null, nanos));
+        for (int i = 0; i < args.length; i++) {
+            append(new Event(Kind.ARGUMENT, constructor, i, args[i], null, 0));
+        }
+    }
+
+    void methodInjected(Method method, Object[] args, long nanos) {
+        append(new Event(Kind.METHOD, method, -1, null, null, nanos));
+        for (int i = 0; i < args.length; i++) {
+            append(new Event(Kind.ARGUMENT, method, i, args[i], null, 0));
+        }
+    }
+
+    void fieldInjected(Member field, Object value, long nanos) {
+        append(new Event(Kind.FIELD, field, -1, value, null, nanos));
+    }
+
+    void mockCreated(Class<?> type, Object mock, long nanos) {
+        append(new Event(Kind.MOCKED, null, -1, mock, type, nanos));
+    }
+
+    void mockMaterialized(Class<?> type, long nanos) {
+        append(new Event(Kind.MATERIALIZED, null, -1, null, type, nanos));
+    }
 
+    /**
+     * After the injections that rebinding did again, and timed to include them.
+     */
+    void rebound(Class<?> type, Object value, long nanos) {
+        append(new Event(Kind.REBOUND, null, -1, value, type, nanos));
     }
 
-    static class Field {
+    public static class Event {
+        private final Kind kind;
         private final Member member;
-        private final Object arg;
+        private final int index;
+        private final Object value;
+        private final Class<?> type;
+        private final long nanos;
 
-        public Field(Member member, Object arg) {
+        public Event(Kind kind, Member member, int index, Object value, Class<?> type, long nanos) {
+            this.kind = kind;
             this.member = member;
-            this.arg = arg;
+            this.index = index;
+            this.value = value;
+            this.type = type;
+            this.nanos = nanos;
         }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * The constructor, method or field injected into; an ARGUMENT's constructor or method. Null for MOCKED,
+         * MATERIALIZED, REBOUND and OTHER.
+         */
+        public Member getMember() {
+            return member;
+        }
+
+        /**
+         * The parameter index of an ARGUMENT, otherwise -1.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        /**
+         * How long the injection, mock creation or materialization took. PicoContainer times its own
+         * injections to the millisecond only.
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        public Class<?> getType() {
+            if (kind == Kind.ARGUMENT) {
+                return member instanceof Constructor
+                        ? ((Constructor<?>) member).getParameterTypes()[index]
+                        : ((Method) member).getParameterTypes()[index];
+            } else if (kind == Kind.FIELD && member instanceof Field) {
+                return ((Field) member).getType();
+            }
+            return type;
+        }
+
         @Override
         public String toString() {
-            return "Field being injected: '" + member.getName() + "' with: " + arg + "\n";
+            switch (kind) {
+                case CONSTRUCTOR:
+                    return "Constructor being injected:\n";
+                case ARGUMENT:
+                    return "  arg[" + index + "] type:" + getType() + ", with: " + value + "\n";
+                case METHOD:
+                    return "Method '" + member.getName() + "' being injected: \n";
+                case FIELD:
+                    return "Field being injected: '" + member.getName() + "' with: " + value + "\n";
+                case MOCKED:
+                    return "Mock created for: " + type + "\n";
+                case REBOUND:
+                    return "Rebound: " + type + ", to: " + value + "\n";
+                case OTHER:
+                    return String.valueOf(value);
+                default:
+                    return "Mock materialized for: " + type + "\n";
+            }
+        }
+
+        String describe() {
+            switch (kind) {
+                case CONSTRUCTOR:
+                    return "constructor of " + member.getDeclaringClass().getName();
+                case METHOD:
+                    return "method " + member.getDeclaringClass().getName() + "." + member.getName();
+                case FIELD:
+                    return "field " + member.getDeclaringClass().getName() + "." + member.getName();
+                case MOCKED:
+                    return "mock of " + type.getName();
+                case REBOUND:
+                    return "rebinding of " + type.getName();
+                case OTHER:
+                    return String.valueOf(value);
+                default:
+                    return "materialized mock of " + type.getName();
+            }
         }
     }
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
         StringBuilder sb = new StringBuilder();
-        for (Object thing : things) {
-            sb.append(thing.toString());
+        for (Event event : events) {
+            // mock creation is timed, but the text is about what was injected where
+            if (event.kind != Kind.MOCKED) {
+                sb.append(event.toString());
+            }
         }
         return sb.toString();
     }
@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+
+/**
+ * Stands in for an interface dependency. As a placeholder it asks the Mocker for the real mock on the first
+ * call on it (other than Object's methods); as a null object it answers defaults until mockOf(..) asks for
+ * the real mock.
+ */
+class LazyMock implements InvocationHandler {
+
+    private static final Map<Class<?>, SoftReference<Constructor<?>>> PROXY_CONSTRUCTORS =
+            Collections.synchronizedMap(new WeakHashMap<Class<?>, SoftReference<Constructor<?>>>());
+
+    private static final Map<Class<?>, Object> PRIMITIVE_DEFAULTS = new HashMap<Class<?>, Object>();
+
+    static {
+        PRIMITIVE_DEFAULTS.put(int.class, 0);
+        PRIMITIVE_DEFAULTS.put(long.class, 0L);
+        PRIMITIVE_DEFAULTS.put(double.class, 0D);
+        PRIMITIVE_DEFAULTS.put(byte.class, (byte) 0);
+        PRIMITIVE_DEFAULTS.put(short.class, (short) 0);
+        PRIMITIVE_DEFAULTS.put(float.class, 0F);
+        PRIMITIVE_DEFAULTS.put(boolean.class, false);
+        PRIMITIVE_DEFAULTS.put(char.class, (char) 0);
+    }
+
+    private final Class<?> type;
+    private final Mockpico.Mocker mocker;
+    private final Journal journal;
+    private final boolean materializeOnCall;
+    private Object mock;
+
+    private LazyMock(Class<?> type, Mockpico.Mocker mocker, Journal journal, boolean materializeOnCall) {
+        this.type = type;
+        this.mocker = mocker;
+        this.journal = journal;
+        this.materializeOnCall = materializeOnCall;
+    }
+
+    static Object placeholder(Class<?> type, Mockpico.Mocker mocker, Journal journal) {
+        return proxy(type, new LazyMock(type, mocker, journal, true));
+    }
+
+    static Object nullObject(Class<?> type, Mockpico.Mocker mocker) {
+        return proxy(type, new LazyMock(type, mocker, Journal.NONE, false));
+    }
+
+    private static Object proxy(Class<?> type, LazyMock handler) {
+        SoftReference<Constructor<?>> ref = PROXY_CONSTRUCTORS.get(type);
+        Constructor<?> constructor = ref == null ? null : ref.get();
+        try {
+            if (constructor == null) {
+                constructor = Proxy.getProxyClass(type.getClassLoader(), type).getConstructor(InvocationHandler.class);
+                PROXY_CONSTRUCTORS.put(type, new SoftReference<Constructor<?>>(constructor));
+            }
+            return constructor.newInstance(handler);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Could not make a proxy for " + type, e.getCause());
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not make a proxy for " + type, e);
+        }
+    }
+
+    static LazyMock of(Object placeholder) {
+        if (placeholder != null && Proxy.isProxyClass(placeholder.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(placeholder);
+            if (handler instanceof LazyMock) {
+                return (LazyMock) handler;
+            }
+        }
+        return null;
+    }
+
+    synchronized Object mock() {
+        if (mock == null) {
+            long start = System.nanoTime();
+            mock = mocker.mock(type);
+            long nanos = System.nanoTime() - start;
+            journal.mockMaterialized(type, nanos);
+            Metrics metrics = Metrics.current();
+            if (metrics != null) {
+                metrics.mockCreated(type, nanos);
+            }
+        }
+        return mock;
+    }
+
+    synchronized Object materialized() {
+        return mock;
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            String name = method.getName();
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (name.equals("toString")) {
+                Object materialized = materialized();
+                if (materialized != null) {
+                    return materialized.toString();
+                }
+                return (materializeOnCall ? "Lazy mock for " : "Null object for ") + type.getSimpleName();
+            }
+        }
+        Object delegate = materializeOnCall ? mock() : materialized();
+        if (delegate == null) {
+            return defaultValue(method.getReturnType());
+        }
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type.isPrimitive()) {
+            return PRIMITIVE_DEFAULTS.get(type);
+        } else if (type == List.class || type == Collection.class || type == Iterable.class) {
+            return Collections.emptyList();
+        } else if (type == Set.class) {
+            return Collections.emptySet();
+        } else if (type == SortedSet.class) {
+            return new TreeSet<Object>();
+        } else if (type == Map.class) {
+            return Collections.emptyMap();
+        } else if (type == SortedMap.class) {
+            return new TreeMap<Object, Object>();
+        }
+        return null;
+    }
+
+}
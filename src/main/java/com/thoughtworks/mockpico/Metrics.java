@@ -0,0 +1,399 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import com.picocontainer.PicoCompositionException;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts and times every make() in the JVM - mocks created (by type), real injectees used, how long
+ * the makes and the Mocker took - and the time resetAll(..) and verifyNoMoreInteractionsForAll(..)
+ * take. Off unless enabled, when all make() pays is one volatile read. Once enabled it is registered
+ * with the platform MBeanServer, and can be written out as JSON or CSV when the JVM exits. For a whole
+ * build, run the tests with -Dmockpico.metrics=target/mockpico-metrics.json (or .csv), or with
+ * -Dmockpico.metrics=true for JMX alone:
+ *
+ * <pre>
+ * Metrics metrics = Metrics.enable();
+ * // ... tests ...
+ * System.out.println(metrics.toJson());
+ * </pre>
+ */
+public class Metrics implements MetricsMBean {
+
+    public static final String PROPERTY = "mockpico.metrics";
+    public static final String OBJECT_NAME = "com.thoughtworks.mockpico:type=Metrics";
+
+    private static final Comparator<Map.Entry<String, AtomicLong>> MOST_FIRST = new Comparator<Map.Entry<String, AtomicLong>>() {
+        public int compare(Map.Entry<String, AtomicLong> one, Map.Entry<String, AtomicLong> two) {
+            long a = one.getValue().get();
+            long b = two.getValue().get();
+            return a < b ? 1 : (a == b ? one.getKey().compareTo(two.getKey()) : -1);
+        }
+    };
+
+    private static volatile Metrics current;
+    // written by the one shutdown hook, should enable(File) have been called
+    private static File dumpFile;
+    private static Metrics dumpMetrics;
+
+    static {
+        String property = System.getProperty(PROPERTY);
+        if (property != null && property.length() > 0 && !property.equals("false")) {
+            if (property.equals("true")) {
+                enable();
+            } else {
+                enable(new File(property));
+            }
+        }
+    }
+
+    private final Histogram makes = new Histogram();
+    private final Histogram mocker = new Histogram();
+    private final Histogram resets = new Histogram();
+    private final Histogram verifies = new Histogram();
+    private final AtomicLong injecteesUsed = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> mocksByType = new ConcurrentHashMap<String, AtomicLong>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Idempotent. Returns the one registry for the JVM.
+     */
+    public static synchronized Metrics enable() {
+        if (current == null) {
+            Metrics metrics = new Metrics();
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(metrics, name);
+                }
+            } catch (JMException e) {
+                // the figures are still there to be asked for, and dumped
+            }
+            current = metrics;
+        }
+        return current;
+    }
+
+    /**
+     * As enable(), and writes the figures to the file when the JVM exits - as CSV if its name ends
+     * with .csv, otherwise as JSON. Called again, the file given last is the one written.
+     */
+    public static synchronized Metrics enable(File dumpAtExit) {
+        Metrics metrics = enable();
+        if (dumpFile == null) {
+            Runtime.getRuntime().addShutdownHook(new Thread("mockpico-metrics") {
+                public void run() {
+                    dumpAtExit();
+                }
+            });
+        }
+        dumpFile = dumpAtExit;
+        dumpMetrics = metrics;
+        return metrics;
+    }
+
+    private static void dumpAtExit() {
+        File file;
+        Metrics metrics;
+        synchronized (Metrics.class) {
+            file = dumpFile;
+            metrics = dumpMetrics;
+        }
+        metrics.writeTo(file);
+    }
+
+    public static synchronized void disable() {
+        if (current != null) {
+            try {
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (JMException e) {
+                // nothing was registered
+            }
+            current = null;
+        }
+    }
+
+    /**
+     * Null when disabled.
+     */
+    public static Metrics current() {
+        return current;
+    }
+
+    void made(long nanos) {
+        makes.record(nanos);
+    }
+
+    void injecteeUsed() {
+        injecteesUsed.incrementAndGet();
+    }
+
+    void mockCreated(Class<?> type, long nanos) {
+        mocker.record(nanos);
+        AtomicLong count = mocksByType.get(type.getName());
+        if (count == null) {
+            AtomicLong first = new AtomicLong();
+            count = mocksByType.putIfAbsent(type.getName(), first);
+            if (count == null) {
+                count = first;
+            }
+        }
+        count.incrementAndGet();
+    }
+
+    void reset(long nanos) {
+        resets.record(nanos);
+    }
+
+    void verified(long nanos) {
+        verifies.record(nanos);
+    }
+
+    public Histogram getMakeHistogram() {
+        return makes;
+    }
+
+    public Histogram getMockerHistogram() {
+        return mocker;
+    }
+
+    public Histogram getResetHistogram() {
+        return resets;
+    }
+
+    public Histogram getVerifyHistogram() {
+        return verifies;
+    }
+
+    public long getMakes() {
+        return makes.getCount();
+    }
+
+    public long getMakeNanos() {
+        return makes.getTotal();
+    }
+
+    public long getMakeNanosP50() {
+        return makes.percentile(50);
+    }
+
+    public long getMakeNanosP99() {
+        return makes.percentile(99);
+    }
+
+    public long getMakeNanosMax() {
+        return makes.getMax();
+    }
+
+    public long getMocksCreated() {
+        return mocker.getCount();
+    }
+
+    public long getMockerNanos() {
+        return mocker.getTotal();
+    }
+
+    public long getInjecteesUsed() {
+        return injecteesUsed.get();
+    }
+
+    public long getResetNanos() {
+        return resets.getTotal();
+    }
+
+    public long getVerifyNanos() {
+        return verifies.getTotal();
+    }
+
+    /**
+     * "type=count", most mocked first.
+     */
+    public String[] getMocksByType() {
+        List<Map.Entry<String, AtomicLong>> entries = mocksByType();
+        String[] byType = new String[entries.size()];
+        for (int i = 0; i < byType.length; i++) {
+            byType[i] = entries.get(i).getKey() + "=" + entries.get(i).getValue().get();
+        }
+        return byType;
+    }
+
+    public long getMocksCreated(Class<?> type) {
+        AtomicLong count = mocksByType.get(type.getName());
+        return count == null ? 0 : count.get();
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"injecteesUsed\": ").append(injecteesUsed.get()).append(",\n");
+        json.append("  \"make\": ").append(makes.toJson()).append(",\n");
+        json.append("  \"mocker\": ").append(mocker.toJson()).append(",\n");
+        json.append("  \"resetAll\": ").append(resets.toJson()).append(",\n");
+        json.append("  \"verifyNoMoreInteractionsForAll\": ").append(verifies.toJson()).append(",\n");
+        json.append("  \"mocksByType\": {");
+        String separator = "\n";
+        for (Map.Entry<String, AtomicLong> entry : mocksByType()) {
+            json.append(separator).append("    \"").append(entry.getKey()).append("\": ").append(entry.getValue().get());
+            separator = ",\n";
+        }
+        return json.append(separator.equals("\n") ? "}\n}\n" : "\n  }\n}\n").toString();
+    }
+
+    /**
+     * A row per histogram, then one per mocked type with just its count.
+     */
+    public String toCsv() {
+        StringBuilder csv = new StringBuilder("name,count,totalNanos,p50Nanos,p99Nanos,maxNanos\n");
+        makes.appendCsv(csv, "make");
+        mocker.appendCsv(csv, "mocker");
+        resets.appendCsv(csv, "resetAll");
+        verifies.appendCsv(csv, "verifyNoMoreInteractionsForAll");
+        csv.append("injecteesUsed,").append(injecteesUsed.get()).append(",,,,\n");
+        for (Map.Entry<String, AtomicLong> entry : mocksByType()) {
+            csv.append("mocked ").append(entry.getKey()).append(',').append(entry.getValue().get()).append(",,,,\n");
+        }
+        return csv.toString();
+    }
+
+    public void writeTo(File file) {
+        try {
+            FileWriter writer = new FileWriter(file);
+            try {
+                writer.write(file.getName().endsWith(".csv") ? toCsv() : toJson());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            throw new PicoCompositionException("Metrics could not be written to " + file, e);
+        }
+    }
+
+    public void reset() {
+        makes.clear();
+        mocker.clear();
+        resets.clear();
+        verifies.clear();
+        injecteesUsed.set(0);
+        mocksByType.clear();
+    }
+
+    @Override
+    public String toString() {
+        return getMakes() + " makes in " + getMakeNanos() / 1000000 + "ms, " + getMocksCreated() + " mocks in "
+                + getMockerNanos() / 1000000 + "ms, " + getInjecteesUsed() + " injectees";
+    }
+
+    private List<Map.Entry<String, AtomicLong>> mocksByType() {
+        List<Map.Entry<String, AtomicLong>> entries = new ArrayList<Map.Entry<String, AtomicLong>>(mocksByType.entrySet());
+        Collections.sort(entries, MOST_FIRST);
+        return entries;
+    }
+
+    /**
+     * Durations bucketed by powers of two, so recording one is a few atomic adds and never allocates.
+     * Percentiles are the upper bound of the bucket they fall in, so are within a factor of two.
+     */
+    public static class Histogram {
+
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            buckets.incrementAndGet(Math.min(63, 64 - Long.numberOfLeadingZeros(Math.max(0, nanos))));
+            count.incrementAndGet();
+            total.addAndGet(nanos);
+            long seen = max.get();
+            while (nanos > seen && !max.compareAndSet(seen, nanos)) {
+                seen = max.get();
+            }
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getTotal() {
+            return total.get();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        public long percentile(double percent) {
+            long wanted = (long) Math.ceil(count.get() * percent / 100);
+            long seen = 0;
+            for (int i = 0; i < 64; i++) {
+                seen += buckets.get(i);
+                if (seen >= wanted && seen > 0) {
+                    return i == 0 ? 0 : Math.min(i == 63 ? Long.MAX_VALUE : 1L << i, max.get());
+                }
+            }
+            return 0;
+        }
+
+        private void clear() {
+            for (int i = 0; i < 64; i++) {
+                buckets.set(i, 0);
+            }
+            count.set(0);
+            total.set(0);
+            max.set(0);
+        }
+
+        private String toJson() {
+            return "{\"count\": " + getCount() + ", \"totalNanos\": " + getTotal() + ", \"p50Nanos\": " + percentile(50)
+                    + ", \"p99Nanos\": " + percentile(99) + ", \"maxNanos\": " + getMax() + "}";
+        }
+
+        private void appendCsv(StringBuilder csv, String name) {
+            csv.append(name).append(',').append(getCount()).append(',').append(getTotal()).append(',')
+                    .append(percentile(50)).append(',').append(percentile(99)).append(',').append(getMax()).append('\n');
+        }
+    }
+
+}
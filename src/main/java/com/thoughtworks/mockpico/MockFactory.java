@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import org.mockito.Mockito;
+import org.mockito.cglib.proxy.Callback;
+import org.mockito.cglib.proxy.Factory;
+import org.mockito.internal.creation.MethodInterceptorFilter;
+import org.mockito.internal.creation.MockSettingsImpl;
+import org.mockito.internal.creation.jmock.SerializableNoOp;
+import org.mockito.internal.handler.MockHandlerFactory;
+import org.mockito.internal.progress.MockingProgress;
+import org.mockito.internal.progress.ThreadSafeMockingProgress;
+import org.mockito.internal.util.MockUtil;
+import org.mockito.mock.MockCreationSettings;
+import org.mockito.stubbing.Answer;
+import org.objenesis.ObjenesisStd;
+
+import java.lang.ref.SoftReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Makes deep stubbing mocks of one type. For each mock Mockito would confirm the settings afresh, and
+ * build a key from the type, its interfaces and its callbacks to find the class CGLIB generated for it.
+ * Here the settings are confirmed once, and the class of the first mock is instantiated directly for
+ * the rest, as Mockito itself would. There is one per raw type - weakly keyed on it and softly held, as
+ * in {@link CachedMemberInjection} - so List&lt;Order&gt;, List&lt;Customer&gt; and every make() share
+ * it, though each still gets a mock of its own.
+ * <p>
+ * That leans on the internals of the Mockito Mockpico is built against. Should they be missing, or fail,
+ * mocks are made with Mockito.mock(..) instead, with the same type and default answer.
+ */
+class MockFactory<T> {
+
+    private static final Map<Class<?>, SoftReference<MockFactory<?>>> FACTORIES =
+            new WeakHashMap<Class<?>, SoftReference<MockFactory<?>>>();
+
+    // false once Mockito's internals could not be linked, for every factory
+    private static volatile boolean internalsLinked = true;
+
+    private final Class<T> type;
+    private final Answer<?> answer;
+    private volatile MockCreationSettings<T> settings;
+    // null until the first mock is made, and after that if a MockMaker other than CGLIB's made it
+    private volatile Class<?> proxyClass;
+    private volatile boolean internalsFailed;
+
+    private MockFactory(Class<T> type, Answer<?> answer, MockCreationSettings<T> settings) {
+        this.type = type;
+        this.answer = answer;
+        this.settings = settings;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> MockFactory<T> forType(Class<T> type) {
+        synchronized (FACTORIES) {
+            SoftReference<MockFactory<?>> held = FACTORIES.get(type);
+            MockFactory<T> factory = held == null ? null : (MockFactory<T>) held.get();
+            if (factory == null) {
+                factory = new MockFactory<T>(type, Mockito.RETURNS_DEEP_STUBS, null);
+                FACTORIES.put(type, new SoftReference<MockFactory<?>>(factory));
+            }
+            return factory;
+        }
+    }
+
+    /**
+     * A factory of its own for mocks made with the same (already confirmed) settings as another mock.
+     */
+    static <T> MockFactory<T> forSettings(MockCreationSettings<T> settings) {
+        return new MockFactory<T>(settings.getTypeToMock(), settings.getDefaultAnswer(), settings);
+    }
+
+    T mock() {
+        if (internalsLinked && !internalsFailed) {
+            try {
+                return Internals.mock(this);
+            } catch (LinkageError e) {
+                internalsLinked = false;
+            } catch (RuntimeException e) {
+                // Mockito.mock(..) will say so if the type can't be mocked at all
+                internalsFailed = true;
+            }
+        }
+        return Mockito.mock(type, Mockito.withSettings().defaultAnswer(answer));
+    }
+
+    /**
+     * Apart, so that the Mockito internals are only linked when the first mock is made.
+     */
+    private static class Internals {
+        private static final MockUtil MOCK_UTIL = new MockUtil();
+        private static final MockingProgress MOCKING_PROGRESS = new ThreadSafeMockingProgress();
+        private static final ObjenesisStd OBJENESIS = new ObjenesisStd(true);
+
+        @SuppressWarnings("unchecked")
+        static <T> T mock(MockFactory<T> factory) {
+            MockCreationSettings<T> settings = factory.settings;
+            if (settings == null) {
+                settings = ((MockSettingsImpl<T>) Mockito.withSettings().defaultAnswer(factory.answer))
+                        .confirm(factory.type);
+                factory.settings = settings;
+            }
+            T mock;
+            Class<?> proxy = factory.proxyClass;
+            if (proxy == null) {
+                mock = MOCK_UTIL.createMock(settings);
+                if (mock instanceof Factory) {
+                    factory.proxyClass = mock.getClass();
+                }
+            } else {
+                Factory instance = (Factory) OBJENESIS.newInstance(proxy);
+                instance.setCallbacks(new Callback[] {
+                        new MethodInterceptorFilter(new MockHandlerFactory().create(settings), settings),
+                        SerializableNoOp.SERIALIZABLE_INSTANCE});
+                mock = settings.getTypeToMock().cast(instance);
+            }
+            MOCKING_PROGRESS.mockingStarted(mock, settings.getTypeToMock());
+            return mock;
+        }
+    }
+
+}
@@ -0,0 +1,271 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import com.picocontainer.PicoCompositionException;
+import org.mockito.MockSettings;
+import org.mockito.Mockito;
+import org.mockito.internal.stubbing.InvocationContainerImpl;
+import org.mockito.internal.stubbing.StubbedInvocationMatcher;
+import org.mockito.internal.util.MockCreationValidator;
+import org.mockito.internal.util.MockUtil;
+import org.mockito.invocation.Invocation;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.listeners.InvocationListener;
+import org.mockito.listeners.MethodInvocationReport;
+import org.mockito.stubbing.Answer;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A Mocker that decides, per dependency type, whether mocks record their invocations and how deep
+ * their deep stubs go. Stub-only mocks keep no invocation history bar their latest invocation,
+ * which when(..) needs, so they can be stubbed but not verified. Use them for the dependencies a
+ * test doesn't care about, and keep recording for the types it will verify:
+ *
+ * <pre>
+ * FooController fc = mockDepsFor(FooController.class)
+ *    .make(MockPolicy.stubOnly().withDeepStubs(1).butRecording(Bar.class).butRecording("com.foo.audit.*"));
+ * </pre>
+ *
+ * Patterns are fully qualified class names where * matches any run of characters. Later rules win
+ * over earlier ones. It is a Mocker, rather than a builder setting, so that it goes to make(..),
+ * asTemplate(..) and prefetching(..) as any other Mocker does.
+ * <p>
+ * Should the Mockito in use not have the internals trimming relies on, asking for a stub-only mock
+ * fails rather than quietly making one that records everything.
+ */
+public class MockPolicy implements Mockpico.Mocker {
+
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private static final MockUtil MOCK_UTIL = new MockUtil();
+
+    private final List<Rule> rules = new ArrayList<Rule>();
+
+    private MockPolicy(boolean stubOnly) {
+        rules.add(new Rule(null, null, stubOnly, UNLIMITED));
+    }
+
+    /**
+     * Full mocks with unlimited deep stubs, as Mockpico makes by default, until told otherwise.
+     */
+    public static MockPolicy recording() {
+        return new MockPolicy(false);
+    }
+
+    public static MockPolicy stubOnly() {
+        return new MockPolicy(true);
+    }
+
+    /**
+     * How many calls deep stubbed return values go. 0 turns deep stubs off.
+     */
+    public MockPolicy withDeepStubs(int depth) {
+        rules.add(new Rule(null, null, null, depth));
+        return this;
+    }
+
+    public MockPolicy withDeepStubs(int depth, Class<?>... types) {
+        for (Class<?> type : types) {
+            rules.add(new Rule(type, null, null, depth));
+        }
+        return this;
+    }
+
+    public MockPolicy withDeepStubs(int depth, String... patterns) {
+        for (String pattern : patterns) {
+            rules.add(new Rule(null, pattern, null, depth));
+        }
+        return this;
+    }
+
+    public MockPolicy butRecording(Class<?>... types) {
+        for (Class<?> type : types) {
+            rules.add(new Rule(type, null, false, null));
+        }
+        return this;
+    }
+
+    public MockPolicy butRecording(String... patterns) {
+        for (String pattern : patterns) {
+            rules.add(new Rule(null, pattern, false, null));
+        }
+        return this;
+    }
+
+    public MockPolicy butStubOnly(Class<?>... types) {
+        for (Class<?> type : types) {
+            rules.add(new Rule(type, null, true, null));
+        }
+        return this;
+    }
+
+    public MockPolicy butStubOnly(String... patterns) {
+        for (String pattern : patterns) {
+            rules.add(new Rule(null, pattern, true, null));
+        }
+        return this;
+    }
+
+    public <T> T mock(Class<T> classToMock) {
+        boolean stubOnly = false;
+        int depth = UNLIMITED;
+        for (Rule rule : rules) {
+            if (rule.matches(classToMock)) {
+                stubOnly = rule.stubOnly == null ? stubOnly : rule.stubOnly;
+                depth = rule.depth == null ? depth : rule.depth;
+            }
+        }
+        return Mockito.mock(classToMock, settings(stubOnly, depth));
+    }
+
+    /**
+     * verifyNoMoreInteractionsForAll passes these by - they have nothing to verify.
+     */
+    public static boolean isStubOnly(Object mock) {
+        return MOCK_UTIL.isMock(mock)
+                && MOCK_UTIL.getMockHandler(mock).getMockSettings().getInvocationListeners().contains(StubOnly.INSTANCE);
+    }
+
+    private static MockSettings settings(boolean stubOnly, int depth) {
+        MockSettings settings = Mockito.withSettings();
+        if (depth == 0) {
+            settings.defaultAnswer(Mockito.RETURNS_DEFAULTS);
+        } else if (depth == UNLIMITED && !stubOnly) {
+            settings.defaultAnswer(Mockito.RETURNS_DEEP_STUBS);
+        } else {
+            settings.defaultAnswer(new DeepStubs(stubOnly, depth));
+        }
+        if (stubOnly) {
+            if (StubOnly.INVOCATIONS == null) {
+                throw new PicoCompositionException("This Mockito's invocation history can't be trimmed, so it "
+                        + "can't have stub-only mocks: use MockPolicy.recording() instead");
+            }
+            settings.invocationListeners(StubOnly.INSTANCE);
+        }
+        return settings;
+    }
+
+    private static class Rule {
+        private final Class<?> type;
+        private final Pattern pattern;
+        private final Boolean stubOnly;
+        private final Integer depth;
+
+        private Rule(Class<?> type, String pattern, Boolean stubOnly, Integer depth) {
+            this.type = type;
+            this.pattern = pattern == null ? null : Pattern.compile(Pattern.quote(pattern).replace("*", "\\E.*\\Q"));
+            this.stubOnly = stubOnly;
+            this.depth = depth;
+        }
+
+        private boolean matches(Class<?> classToMock) {
+            if (type != null) {
+                return type == classToMock;
+            }
+            return pattern == null || pattern.matcher(classToMock.getName()).matches();
+        }
+    }
+
+    /**
+     * Mockito (before 1.10) has no stub-only mocks, so this trims each mock's invocation history
+     * back to the latest invocation - which when(..) still needs - after every call.
+     */
+    private static class StubOnly implements InvocationListener, Serializable {
+
+        private static final StubOnly INSTANCE = new StubOnly();
+        private static final Field[] INVOCATIONS = invocationsFields();
+
+        public void reportInvocation(MethodInvocationReport report) {
+            Object mock = ((Invocation) report.getInvocation()).getMock();
+            try {
+                Object invocations = MOCK_UTIL.getMockHandler(mock).getInvocationContainer();
+                for (Field field : INVOCATIONS) {
+                    invocations = field.get(invocations);
+                }
+                List<?> list = (List<?>) invocations;
+                synchronized (list) {
+                    while (list.size() > 1) {
+                        list.remove(0);
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new PicoCompositionException("Can't trim the invocation history of a stub-only mock", e);
+            }
+        }
+
+        // InvocationContainerImpl.registeredInvocations.invocations, or null if this Mockito has none
+        private static Field[] invocationsFields() {
+            try {
+                Field registered = InvocationContainerImpl.class.getDeclaredField("registeredInvocations");
+                Field invocations = registered.getType().getDeclaredField("invocations");
+                registered.setAccessible(true);
+                invocations.setAccessible(true);
+                return new Field[] {registered, invocations};
+            } catch (NoSuchFieldException e) {
+                return null;
+            } catch (SecurityException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Mockito's RETURNS_DEEP_STUBS, but only so many levels deep, and passing stub-only on.
+     */
+    static class DeepStubs implements Answer<Object>, Serializable {
+
+        private final boolean stubOnly;
+        private final int depth;
+
+        private DeepStubs(boolean stubOnly, int depth) {
+            this.stubOnly = stubOnly;
+            this.depth = depth;
+        }
+
+        public Object answer(InvocationOnMock invocation) throws Throwable {
+            Class<?> returnType = invocation.getMethod().getReturnType();
+            if (!new MockCreationValidator().isTypeMockable(returnType)) {
+                return Mockito.RETURNS_DEFAULTS.answer(invocation);
+            }
+            InvocationContainerImpl container = (InvocationContainerImpl) MOCK_UTIL.getMockHandler(invocation.getMock()).getInvocationContainer();
+            for (StubbedInvocationMatcher stubbed : container.getStubbedInvocations()) {
+                if (container.getInvocationForStubbing().matches(stubbed.getInvocation())) {
+                    return stubbed.answer(invocation);
+                }
+            }
+            final Object deeper = Mockito.mock(returnType, settings(stubOnly, depth == UNLIMITED ? UNLIMITED : depth - 1));
+            container.addAnswer(new Answer<Object>() {
+                public Object answer(InvocationOnMock invocation) {
+                    return deeper;
+                }
+            }, false);
+            return deeper;
+        }
+    }
+
+}
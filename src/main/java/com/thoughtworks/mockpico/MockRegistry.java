@@ -0,0 +1,337 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import com.picocontainer.ComponentAdapter;
+import com.picocontainer.PicoContainer;
+import com.picocontainer.adapters.InstanceAdapter;
+import org.mockito.Mockito;
+import org.mockito.internal.stubbing.InvocationContainer;
+import org.mockito.internal.stubbing.StubbedInvocationMatcher;
+import org.mockito.internal.util.MockUtil;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The mocks Mockpico created or was handed as injectees, per container, so that resetAll and
+ * verifyNoMoreInteractionsForAll need not inspect every adapter. Mocks a test put in the container
+ * itself are found by looking through its adapters, but only when their number has changed.
+ */
+class MockRegistry {
+
+    private static final Map<PicoContainer, MockRegistry> REGISTRIES =
+            Collections.synchronizedMap(new WeakHashMap<PicoContainer, MockRegistry>());
+
+    private static final Map<MadeKey, Mockpico.Remake> MADE = new HashMap<MadeKey, Mockpico.Remake>();
+    private static final ReferenceQueue<Object> GONE = new ReferenceQueue<Object>();
+
+    private static volatile boolean invocationsVisible = true;
+
+    private final Map<Object, Boolean> seen = new IdentityHashMap<Object, Boolean>();
+    private final List<Object> mocks = new ArrayList<Object>();
+    private final Map<Object, Object> created = new LinkedHashMap<Object, Object>();
+    private final Map<Object, Object> byKey = new HashMap<Object, Object>();
+    private final List<UsageReport.Dependency> tracked = new ArrayList<UsageReport.Dependency>();
+    private int adaptersLookedAt;
+
+    static MockRegistry forContainer(PicoContainer pico) {
+        synchronized (REGISTRIES) {
+            MockRegistry registry = REGISTRIES.get(pico);
+            if (registry == null) {
+                registry = new MockRegistry();
+                REGISTRIES.put(pico, registry);
+            }
+            return registry;
+        }
+    }
+
+    static List<Object> mocksIn(PicoContainer pico) {
+        synchronized (pico) {
+            Collection<ComponentAdapter<?>> adapters = pico.getComponentAdapters();
+            MockRegistry registry = REGISTRIES.get(pico);
+            if (registry == null && adapters.isEmpty()) {
+                return Collections.emptyList();
+            }
+            registry = registry == null ? forContainer(pico) : registry;
+            registry.addMocksAmong(adapters);
+            return registry.getMocks();
+        }
+    }
+
+    /**
+     * Mocks a test added to the container with addComponent(..), rather than handing them to Mockpico.
+     */
+    private synchronized void addMocksAmong(Collection<ComponentAdapter<?>> adapters) {
+        if (adapters.size() == adaptersLookedAt) {
+            return;
+        }
+        adaptersLookedAt = adapters.size();
+        for (ComponentAdapter<?> adapter : adapters) {
+            InstanceAdapter<?> instanceAdapter = adapter.findAdapterOfType(InstanceAdapter.class);
+            if (instanceAdapter == null) {
+                continue;
+            }
+            Object instance = instanceAdapter.getComponentInstance(null, ComponentAdapter.NOTHING.class);
+            if (instance != null && !seen.containsKey(instance)
+                    && (LazyMock.of(instance) != null || Mockito.mockingDetails(instance).isMock())) {
+                added(adapter.getComponentKey(), instance);
+            }
+        }
+    }
+
+    /**
+     * Lazy placeholders that were never called on have no mock to reset or verify.
+     */
+    static List<Object> materializedMocksIn(PicoContainer pico) {
+        List<Object> mocks = mocksIn(pico);
+        List<Object> materialized = new ArrayList<Object>(mocks.size());
+        for (Object mock : mocks) {
+            LazyMock lazy = LazyMock.of(mock);
+            Object real = lazy == null ? mock : lazy.materialized();
+            if (real != null) {
+                materialized.add(real);
+            }
+        }
+        return materialized;
+    }
+
+    /**
+     * Called on or stubbed since it was made or last reset. Stubbings a StubbingProfile replayed don't count, and
+     * anything that isn't a Mockito mock counts as touched. Mockito has no public way to ask, so its internals are
+     * looked into; should a Mockito other than the one Mockpico was built against not have them, every mock counts
+     * as touched, and so is always reset.
+     */
+    static boolean isTouched(Object mock) {
+        Object invocations = invocationsOf(mock);
+        return invocations == null || areTouched(invocations);
+    }
+
+    /**
+     * The mock's invocations and stubbings, which it has until it is next reset. They can be held without holding
+     * the mock until it is called on or stubbed. Null for anything not a Mockito mock, or if they can't be seen.
+     */
+    static Object invocationsOf(Object mock) {
+        if (invocationsVisible && Mockito.mockingDetails(mock).isMock()) {
+            try {
+                return Invocations.of(mock);
+            } catch (LinkageError e) {
+                invocationsVisible = false;
+            } catch (RuntimeException e) {
+                invocationsVisible = false;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Of what invocationsOf(..) returned.
+     */
+    static boolean areTouched(Object invocations) {
+        return Invocations.touched((InvocationContainer) invocations);
+    }
+
+    /**
+     * Apart, so that the Mockito internals are only linked when first asked about.
+     */
+    private static class Invocations {
+        private static final MockUtil MOCK_UTIL = new MockUtil();
+
+        static InvocationContainer of(Object mock) {
+            return MOCK_UTIL.getMockHandler(mock).getInvocationContainer();
+        }
+
+        static boolean touched(InvocationContainer invocations) {
+            if (!invocations.getInvocations().isEmpty()) {
+                return true;
+            }
+            List<StubbedInvocationMatcher> stubbed = invocations.getStubbedInvocations();
+            synchronized (stubbed) {
+                for (StubbedInvocationMatcher stubbing : stubbed) {
+                    if (!StubbingProfile.isReplayed(stubbing)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    synchronized void add(Object mock) {
+        if (seen.put(mock, Boolean.TRUE) == null) {
+            mocks.add(mock);
+        }
+    }
+
+    /**
+     * A mock the container's monitor made for a dependency, registered under that key.
+     */
+    synchronized void created(Object key, Object mock) {
+        added(key, mock);
+        created.put(key, mock);
+    }
+
+    /**
+     * A mock handed in, registered under that key.
+     */
+    synchronized void added(Object key, Object mock) {
+        add(mock);
+        byKey.put(key, mock);
+    }
+
+    /**
+     * The key's component was taken out of the container. Its mock is forgotten unless another key still has it.
+     */
+    synchronized void removed(Object key) {
+        created.remove(key);
+        Object mock = byKey.remove(key);
+        if (mock == null) {
+            return;
+        }
+        for (Object other : byKey.values()) {
+            if (other == mock) {
+                return;
+            }
+        }
+        seen.remove(mock);
+        for (int i = 0; i < mocks.size(); i++) {
+            if (mocks.get(i) == mock) {
+                mocks.remove(i);
+                break;
+            }
+        }
+    }
+
+    /**
+     * The key's mock is giving way to a real component. It is still reset and verified, as whatever was made with it
+     * holds it, but no longer stands for the key. False when the key has no mock.
+     */
+    synchronized boolean superseded(Object key) {
+        created.remove(key);
+        return byKey.remove(key) != null;
+    }
+
+    /**
+     * An object made rebindable() into a container, and how, so that it can have a dependency rebound. The object is
+     * held weakly, and its Remake, which holds the container, for as long as the object is around.
+     */
+    static void made(Object instance, Mockpico.Remake remake) {
+        synchronized (MADE) {
+            expungeMade();
+            MADE.put(new MadeKey(instance, GONE), remake);
+        }
+    }
+
+    static void remade(Object was, Object instance, Mockpico.Remake remake) {
+        synchronized (MADE) {
+            expungeMade();
+            MADE.remove(new MadeKey(was, null));
+            MADE.put(new MadeKey(instance, GONE), remake);
+        }
+    }
+
+    static Mockpico.Remake remakeOf(Object instance) {
+        synchronized (MADE) {
+            expungeMade();
+            return MADE.get(new MadeKey(instance, null));
+        }
+    }
+
+    /**
+     * The registry of the container an object was made into.
+     */
+    static MockRegistry registryOf(Object made) {
+        Mockpico.Remake remake = remakeOf(made);
+        return remake == null ? null : forContainer(remake.getContainer());
+    }
+
+    private static void expungeMade() {
+        for (Reference<?> gone = GONE.poll(); gone != null; gone = GONE.poll()) {
+            MADE.remove(gone);
+        }
+    }
+
+    /**
+     * Made objects are told apart by identity, as they may have equals(..) of their own.
+     */
+    private static class MadeKey extends WeakReference<Object> {
+        private final int hash;
+
+        private MadeKey(Object made, ReferenceQueue<Object> queue) {
+            super(made, queue);
+            this.hash = System.identityHashCode(made);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            Object made = get();
+            return made != null && other instanceof MadeKey && ((MadeKey) other).get() == made;
+        }
+    }
+
+    synchronized void track(UsageReport.Dependency dependency) {
+        tracked.add(dependency);
+    }
+
+    /**
+     * Before the container's mocks are reset, so UsageReports remember which were touched.
+     */
+    static void latchUsageIn(PicoContainer pico) {
+        MockRegistry registry = REGISTRIES.get(pico);
+        if (registry != null) {
+            for (UsageReport.Dependency dependency : registry.getTracked()) {
+                dependency.latch();
+            }
+        }
+    }
+
+    private synchronized List<UsageReport.Dependency> getTracked() {
+        return new ArrayList<UsageReport.Dependency>(tracked);
+    }
+
+    synchronized Map<Object, Object> getCreated() {
+        return new LinkedHashMap<Object, Object>(created);
+    }
+
+    synchronized List<Object> getMocks() {
+        return new ArrayList<Object>(mocks);
+    }
+
+}
@@ -21,12 +21,14 @@
  */
 package com.thoughtworks.mockpico;
 
+import com.picocontainer.Characteristics;
 import com.picocontainer.ComponentAdapter;
 import com.picocontainer.DefaultPicoContainer;
 import com.picocontainer.InjectionType;
 import com.picocontainer.MutablePicoContainer;
+import com.picocontainer.PicoCompositionException;
 import com.picocontainer.PicoContainer;
-import com.picocontainer.adapters.InstanceAdapter;
+import com.picocontainer.adapters.AbstractAdapter;
 import com.picocontainer.behaviors.Caching;
 import com.picocontainer.containers.EmptyPicoContainer;
 import com.picocontainer.injectors.AnnotatedFieldInjection;
@@ -36,7 +38,9 @@ import com.picocontainer.lifecycle.NullLifecycleStrategy;
 import com.picocontainer.monitors.NullComponentMonitor;
 import org.mockito.Mockito;
 
+import java.io.Closeable;
 import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
@@ -45,7 +49,21 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.picocontainer.injectors.Injectors.CDI;
 import static com.picocontainer.injectors.Injectors.SDI;
@@ -56,47 +74,293 @@ public class Mockpico {
     public static final Class<? extends Annotation> GUICE_ATINJECT = getInjectionAnnotation("com.google.inject.Inject");
     public static final Class<? extends Annotation> SPRING_AUTOWIRED = getInjectionAnnotation("org.springframework.beans.factory.annotation.Autowired");
 
-    private static final InjectionType[] DEFAULT_INJECTION_TYPES = new InjectionType[] {
-            CDI(),
-            new AnnotatedFieldInjection(com.picocontainer.annotations.Inject.class, JSR330_ATINJECT, SPRING_AUTOWIRED, GUICE_ATINJECT),
-            new AnnotatedMethodInjection(false, com.picocontainer.annotations.Inject.class, JSR330_ATINJECT, SPRING_AUTOWIRED, GUICE_ATINJECT)
-    };
+    static final Class<? extends Annotation>[] INJECTION_ANNOTATIONS = injectionAnnotations(
+            com.picocontainer.annotations.Inject.class, JSR330_ATINJECT, SPRING_AUTOWIRED, GUICE_ATINJECT);
+
+    /**
+     * A fresh set per container, so that no injection type instance is shared between threads.
+     */
+    private static InjectionType[] defaultInjectionTypes() {
+        return new InjectionType[] {
+                CDI(),
+                new AnnotatedFieldInjection(INJECTION_ANNOTATIONS),
+                new AnnotatedMethodInjection(false, INJECTION_ANNOTATIONS)
+        };
+    }
 
     public static <T> ContainerOrInjectionTypesOrInjecteesOrJournalOrMakeNext<T> mockDepsFor(Class<T> type) {
         return new ContainerOrInjectionTypesOrInjecteesOrJournalOrMakeNext<T>(type);
     }
 
+    /**
+     * Makes all the types in one container, so that each dependency is mocked once and shared by all of them.
+     * A type that another depends on should come first. Otherwise those made before it got a mock of it, which is
+     * kept with the other mocks, and it is then made for real for those made after it.
+     */
+    public static InjecteesOrJournalOrMakeAllNext mockDepsForAll(Class<?>... types) {
+        return new InjecteesOrJournalOrMakeAllNext(types);
+    }
+
+    /**
+     * Stub-only mocks (see MockPolicy) keep no history, so are passed by.
+     */
     public static void verifyNoMoreInteractionsForAll(PicoContainer mocks) {
-        Collection<ComponentAdapter<?>> foo = mocks.getComponentAdapters();
-        for (ComponentAdapter<?> componentAdapter : foo) {
-            InstanceAdapter ia = componentAdapter.findAdapterOfType(InstanceAdapter.class);
-            if (ia != null && ia.getComponentImplementation().getName().indexOf("EnhancerByMockitoWithCGLIB") > 0) {
-                Mockito.verifyNoMoreInteractions(ia.getComponentInstance(mocks, ComponentAdapter.NOTHING.class));
+        Metrics metrics = Metrics.current();
+        long start = metrics == null ? 0 : System.nanoTime();
+        try {
+            for (Object mock : MockRegistry.materializedMocksIn(mocks)) {
+                if (!MockPolicy.isStubOnly(mock)) {
+                    Mockito.verifyNoMoreInteractions(mock);
+                }
+            }
+        } finally {
+            if (metrics != null) {
+                metrics.verified(System.nanoTime() - start);
             }
         }
     }
 
+    /**
+     * Every mock is reset even if one fails to be; the first failure is thrown afterwards.
+     */
     public static void resetAll(MutablePicoContainer mocks) {
-        Collection<ComponentAdapter<?>> foo = mocks.getComponentAdapters();
-        for (ComponentAdapter<?> componentAdapter : foo) {
-            InstanceAdapter ia = componentAdapter.findAdapterOfType(InstanceAdapter.class);
-            if (ia != null && ia.getComponentImplementation().getName().indexOf("EnhancerByMockitoWithCGLIB") > 0) {
-                Mockito.reset(ia.getComponentInstance(mocks, ComponentAdapter.NOTHING.class));
+        Metrics metrics = Metrics.current();
+        long start = metrics == null ? 0 : System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            MockRegistry.latchUsageIn(mocks);
+            for (Object mock : MockRegistry.materializedMocksIn(mocks)) {
+                try {
+                    Mockito.reset(mock);
+                } catch (RuntimeException e) {
+                    failure = failure == null ? e : failure;
+                }
+            }
+        } finally {
+            if (metrics != null) {
+                metrics.reset(System.nanoTime() - start);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * As resetAll, but leaves alone mocks that were neither called nor stubbed since they were made or last reset.
+     * Returns how many were reset.
+     */
+    public static int resetTouched(MutablePicoContainer mocks) {
+        Metrics metrics = Metrics.current();
+        long start = metrics == null ? 0 : System.nanoTime();
+        int reset = 0;
+        RuntimeException failure = null;
+        try {
+            MockRegistry.latchUsageIn(mocks);
+            for (Object mock : MockRegistry.materializedMocksIn(mocks)) {
+                if (MockRegistry.isTouched(mock)) {
+                    try {
+                        Mockito.reset(mock);
+                        reset++;
+                    } catch (RuntimeException e) {
+                        failure = failure == null ? e : failure;
+                    }
+                }
+            }
+        } finally {
+            if (metrics != null) {
+                metrics.reset(System.nanoTime() - start);
             }
         }
+        if (failure != null) {
+            throw failure;
+        }
+        return reset;
+    }
+
+    /**
+     * The Mockito mock behind a dependency injected by a withLazyMocks() make(), or made by a ProxyMocker,
+     * creating it if need be, for use with when(..), verify(..) and doReturn(..).when(..). Any other object
+     * is returned as is.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T mockOf(T dependency) {
+        LazyMock lazy = LazyMock.of(dependency);
+        return lazy == null ? dependency : (T) lazy.mock();
+    }
+
+    /**
+     * Swaps one dependency of an object Mockpico made - for a table-driven test that wants the same object, but
+     * with a failing PaymentGateway, say. Fields and methods that take it are injected again, in place. If the
+     * constructor takes it, just the object is made again, from the mocks and injectees it was made with. Either
+     * way its container now holds the dependency, and its journal records the rebinding. Other objects made into
+     * the same container keep what they had. Returns the object, or the one made in its place. Only objects made
+     * rebindable() can be rebound.
+     */
+    public static <T> T rebind(T made, Object dependency) {
+        return rebound(made, Mockito.mockingDetails(dependency).isMock() ? mockedType(dependency) : dependency.getClass(),
+                dependency);
+    }
+
+    /**
+     * As rebind(made, dependency), with the dependency standing in for the given type. Needed when the object was
+     * made with injection types of your choosing, whose injection points Mockpico does not know.
+     */
+    public static <T, D> T rebind(T made, Class<D> as, D dependency) {
+        return rebound(made, as, dependency);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T rebound(T made, Class<?> as, Object dependency) {
+        Remake remake = MockRegistry.remakeOf(made);
+        if (remake == null) {
+            throw new PicoCompositionException(made.getClass().getName() + " was not made rebindable() by Mockpico");
+        }
+        MutablePicoContainer mocks = remake.container;
+        synchronized (mocks) {
+            long start = System.nanoTime();
+            MockRegistry registry = MockRegistry.forContainer(mocks);
+            InjectionPlan plan = remake.planned ? InjectionPlan.forType(remake.type) : null;
+            if (plan != null && !plan.isUsable()) {
+                plan = null;
+            }
+            List<Type> keys = plan == null ? Collections.<Type>singletonList(as) : plan.typesTaking(as);
+            if (keys.isEmpty()) {
+                throw new PicoCompositionException(remake.type.getName() + " has nowhere to inject a " + as.getName());
+            }
+            for (Type key : keys) {
+                replace(mocks, registry, remake.type, key, dependency);
+            }
+            MockpicoComponentMonitor monitor = new MockpicoComponentMonitor(remake.journal, remake.mocker, registry,
+                    remake.lazyMocks, remake.defaultValues, Metrics.current(), null, remake.stubbing);
+            mocks.changeMonitor(monitor);
+            Object rebound = made;
+            if (plan == null || plan.constructorTakes(as)) {
+                mocks.removeComponent(remake.type);
+                if (plan == null) {
+                    rebound = mocks.addComponent(remake.type).getComponent(remake.type);
+                    mocks.removeComponent(remake.type);
+                } else {
+                    rebound = plan.make(mocks, monitor);
+                }
+                addMade(mocks, remake.type, rebound);
+                MockRegistry.remade(made, rebound, remake);
+            } else {
+                plan.reinject(mocks, monitor, made, as);
+            }
+            remake.journal.rebound(as, dependency, System.nanoTime() - start);
+            return (T) rebound;
+        }
+    }
+
+    // whatever stands for the key's type - a mock made for it, or an injectee - other than the object itself.
+    // A mock replaced is forgotten, so resetAll and verifyNoMoreInteractionsForAll no longer act on it.
+    private static void replace(MutablePicoContainer mocks, MockRegistry registry, Class<?> target, Type key,
+                                Object dependency) {
+        Class<?> raw = MockpicoComponentMonitor.rawType(key);
+        for (ComponentAdapter<?> adapter : new ArrayList<ComponentAdapter<?>>(mocks.getComponentAdapters())) {
+            Object existing = adapter.getComponentKey();
+            // objects made into the container, this one or others made for all, stay as they are
+            if (adapter.findAdapterOfType(MadeAdapter.class) == null
+                    && (existing.equals(key) || raw.isAssignableFrom(adapter.getComponentImplementation()))) {
+                mocks.removeComponent(existing);
+                registry.removed(existing);
+            }
+        }
+        mocks.addComponent(key, dependency);
+        if (Mockito.mockingDetails(dependency).isMock()) {
+            registry.added(key, dependency);
+        }
+    }
+
+    private static Class<?> mockedType(Object mock) {
+        Class<?> parent = mock.getClass().getSuperclass();
+        if (parent == Object.class) {
+            parent = mock.getClass().getInterfaces()[0];
+        }
+        return parent;
+    }
+
+    /**
+     * How an object made rebindable() was made. It is kept for as long as the object is, and keeps the container.
+     */
+    static class Remake {
+        private final Class<?> type;
+        private final boolean planned;
+        private final Journal journal;
+        private final Mocker mocker;
+        private final boolean lazyMocks;
+        private final DefaultValues defaultValues;
+        private final StubbingProfile stubbing;
+        private final MutablePicoContainer container;
+
+        private Remake(JournalOrMakeNext<?> made, Mocker mocker) {
+            this.type = made.type;
+            this.planned = made.planned;
+            this.journal = made.journal;
+            this.mocker = mocker;
+            this.lazyMocks = made.lazyMocks;
+            this.defaultValues = made.defaultValues;
+            this.stubbing = made.stubbing;
+            this.container = made.mocks;
+        }
+
+        MutablePicoContainer getContainer() {
+            return container;
+        }
+    }
+
+    /**
+     * Puts a made object in its container, which holds it only weakly. The container of a rebindable() object is
+     * kept for as long as the object is (see Remake), so a strong hold the other way would keep both for good.
+     */
+    private static <T> void addMade(MutablePicoContainer mocks, Class<T> type, Object made) {
+        mocks.as(Characteristics.NO_CACHE).addAdapter(new MadeAdapter<T>(type, type.cast(made)));
+    }
+
+    private static class MadeAdapter<T> extends AbstractAdapter<T> {
+        private final WeakReference<T> made;
+
+        private MadeAdapter(Class<T> type, T made) {
+            super(type, type);
+            this.made = new WeakReference<T>(made);
+        }
+
+        public T getComponentInstance(PicoContainer container, Type into) {
+            return made.get();
+        }
+
+        public void verify(PicoContainer container) {
+        }
+
+        public String getDescriptor() {
+            return "Made-";
+        }
     }
 
     public static class JournalOrMakeNext<T> {
 
         protected final Class<T> type;
         protected final MutablePicoContainer mocks;
+        protected final InjectionType[] injectionTypes;
         protected final Object[] injectees;
-        protected Journal journal = new Journal();
+        protected final boolean planned;
+        protected Journal journal = Journal.NONE;
+        protected boolean lazyMocks;
+        protected boolean parallelMocks;
+        protected boolean parallelMockerCalls;
+        protected DefaultValues defaultValues = DefaultValues.standard();
+        protected UsageReport usage;
+        protected StubbingProfile stubbing;
+        protected boolean rebindable;
 
-        private JournalOrMakeNext(Class<T> type, MutablePicoContainer mocks, Object[] injectees) {
+        private JournalOrMakeNext(Class<T> type, MutablePicoContainer mocks, InjectionType[] injectionTypes,
+                                  Object[] injectees, boolean planned) {
             this.type = type;
             this.mocks = mocks;
+            this.injectionTypes = injectionTypes;
             this.injectees = injectees;
+            this.planned = planned;
         }
 
         public JournalOrMakeNext<T> journalTo(Journal journal) {
@@ -104,25 +368,496 @@ public class Mockpico {
             return this;
         }
 
-         public T make() {
+        public JournalOrMakeNext<T> withLazyMocks() {
+            this.lazyMocks = true;
+            return this;
+        }
+
+        /**
+         * Records the mocks this make() creates, to report those never called on or stubbed.
+         */
+        public JournalOrMakeNext<T> trackUsageIn(UsageReport usage) {
+            this.usage = usage;
+            return this;
+        }
+
+        /**
+         * Mocks made for dependencies the profile has stubbings for are stubbed as they are made, before anything
+         * is injected with them.
+         */
+        public JournalOrMakeNext<T> withStubbing(StubbingProfile stubbing) {
+            this.stubbing = stubbing;
+            return this;
+        }
+
+        /**
+         * Dependencies these have a value for are injected with it rather than a mock.
+         */
+        public JournalOrMakeNext<T> withDefaultValues(DefaultValues defaultValues) {
+            this.defaultValues = defaultValues;
+            return this;
+        }
+
+        /**
+         * Remembers how the object was made, so that rebind(..) can swap its dependencies and
+         * StubbingProfile.record(name, made) can find its mocks. Its container is kept for as long as the object is
+         * - for good, should one of its mocks be left holding the object.
+         */
+        public JournalOrMakeNext<T> rebindable() {
+            this.rebindable = true;
+            return this;
+        }
+
+        /**
+         * Mocks everything the default injection types will ask for before the object is made, on a shared pool of
+         * (at most one per core) threads, rather than one at a time as each is asked for. Pays off for constructors
+         * and field lists dozens wide. Only if mockerIsThreadSafe will the Mocker handed to make(..) be called from
+         * several threads at once - otherwise the mocks are still made up front, but one after another.
+         */
+        public JournalOrMakeNext<T> withParallelMocks(boolean mockerIsThreadSafe) {
+            this.parallelMocks = true;
+            this.parallelMockerCalls = mockerIsThreadSafe;
+            return this;
+        }
+
+        /**
+         * Makes once now, to create the mocks, and returns a template that makes fresh instances from those mocks
+         * (reset each time) and the same injectees, without discovering or mocking anything again.
+         */
+        public Template<T> asTemplate() {
+            return asTemplate(new ClassMocker());
+        }
+
+        public Template<T> asTemplate(Mocker mocker) {
+            if (injectionTypes == null) {
+                throw new PicoCompositionException("A template makes containers of its own, so it needs "
+                        + "withInjectionTypes(..) rather than a container handed in with using(..)");
+            }
+            return new Template<T>(this, mocker);
+        }
+
+        /**
+         * Makes instances on background threads (virtual ones where the JVM has them), keeping up to depth of them
+         * ready for take(). Each has a container, mocks and (if journalTo(..) was asked for) a Journal of its own.
+         */
+        public Prefetch<T> prefetching(int depth) {
+            return prefetching(depth, 1, new ClassMocker());
+        }
+
+        /**
+         * With more than one producer the Mocker is called from several threads at once.
+         */
+        public Prefetch<T> prefetching(int depth, int producers, Mocker mocker) {
+            if (injectionTypes == null) {
+                throw new PicoCompositionException("Prefetching makes containers of its own, so it needs "
+                        + "withInjectionTypes(..) rather than a container handed in with using(..)");
+            }
+            return new Prefetch<T>(copyInto(mocks), depth, producers, mocker);
+        }
+
+        private JournalOrMakeNext<T> copyInto(MutablePicoContainer pico) {
+            JournalOrMakeNext<T> copy = new JournalOrMakeNext<T>(type, pico, injectionTypes, injectees, planned);
+            copy.journal = journal;
+            copy.lazyMocks = lazyMocks;
+            copy.parallelMocks = parallelMocks;
+            copy.parallelMockerCalls = parallelMockerCalls;
+            copy.defaultValues = defaultValues;
+            copy.usage = usage;
+            copy.stubbing = stubbing;
+            copy.rebindable = rebindable;
+            return copy;
+        }
+
+        public T make() {
             return make(new ClassMocker());
         }
 
+        /**
+         * Safe to call from many threads at once. Each mockDepsFor(..) builder has a container of its own, so those
+         * makes run in parallel; makes into the same container handed to using(..) are serialized on that container.
+         * A single builder is not meant to be shared between threads.
+         */
         public T make(Mocker mocker) {
-            mocks.changeMonitor(new MockpicoComponentMonitor(journal, mocker));
-            for (Object injectee : injectees) {
-                String s = injectee.getClass().getName();
-                if (s.indexOf("ByMockito") > -1) {
-                    Class<?> parent = injectee.getClass().getSuperclass();
-                    if (parent == Object.class) {
-                        parent = injectee.getClass().getInterfaces()[0];
+            Metrics metrics = Metrics.current();
+            if (metrics == null) {
+                return make(mocker, null);
+            }
+            long start = System.nanoTime();
+            T made = make(mocker, metrics);
+            metrics.made(System.nanoTime() - start);
+            return made;
+        }
+
+        private T make(Mocker mocker, Metrics metrics) {
+            synchronized (mocks) {
+                MockRegistry registry = MockRegistry.forContainer(mocks);
+                MockpicoComponentMonitor monitor = new MockpicoComponentMonitor(journal, mocker, registry, lazyMocks,
+                        defaultValues, metrics, usage == null ? null : usage.started(type), stubbing);
+                mocks.changeMonitor(monitor);
+                for (Object injectee : injectees) {
+                    if (Mockito.mockingDetails(injectee).isMock()) {
+                        mocks.addComponent(mockedType(injectee), injectee);
+                        registry.added(mockedType(injectee), injectee);
+                    } else {
+                        mocks.addComponent(injectee);
+                        if (metrics != null) {
+                            metrics.injecteeUsed();
+                        }
+                    }
+                }
+                if (planned) {
+                    // only the default injection types are known to the plan
+                    InjectionPlan plan = InjectionPlan.forType(type);
+                    if (plan.isUsable()) {
+                        if (parallelMocks) {
+                            monitor.mockUpFront(mocks, plan, parallelMockerCalls);
+                        }
+                        T made = plan.make(mocks, monitor);
+                        addMade(mocks, type, made);
+                        if (rebindable) {
+                            MockRegistry.made(made, new Remake(this, mocker));
+                        }
+                        return made;
+                    }
+                }
+                T made = mocks.addComponent(type).getComponent(type);
+                // built by the container, which would otherwise cache it
+                mocks.removeComponent(type);
+                addMade(mocks, type, made);
+                if (rebindable) {
+                    MockRegistry.made(made, new Remake(this, mocker));
+                }
+                return made;
+            }
+        }
+
+    }
+
+    public static class Template<T> {
+
+        private final Class<T> type;
+        private final InjectionType[] injectionTypes;
+        private final Object[] injectees;
+        private final boolean planned;
+        private final boolean lazyMocks;
+        private final DefaultValues defaultValues;
+        private final StubbingProfile stubbing;
+        private final boolean rebindable;
+        private final Mocker mocker;
+        private final Map<Object, Object> mocks;
+        private final PicoContainer parent;
+
+        private Template(JournalOrMakeNext<T> prototype, Mocker mocker) {
+            this.type = prototype.type;
+            this.injectionTypes = prototype.injectionTypes;
+            this.injectees = prototype.injectees;
+            this.planned = prototype.planned;
+            this.lazyMocks = prototype.lazyMocks;
+            this.defaultValues = prototype.defaultValues;
+            this.stubbing = prototype.stubbing;
+            this.rebindable = prototype.rebindable;
+            this.mocker = mocker;
+            this.parent = prototype.mocks.getParent();
+            prototype.make(mocker);
+            this.mocks = MockRegistry.forContainer(prototype.mocks).getCreated();
+        }
+
+        /**
+         * Each instance has a container of its own, but they all share the template's mocks, which are reset
+         * here, and stubbed again from withStubbing(..)'s profile. Only one instance per template should be in use
+         * at a time.
+         */
+        public T make() {
+            return make(Journal.NONE);
+        }
+
+        public T make(Journal journal) {
+            MutablePicoContainer pico = makePicoContainer(parent, planned ? defaultInjectionTypes() : injectionTypes);
+            MockRegistry registry = MockRegistry.forContainer(pico);
+            for (Map.Entry<Object, Object> mock : mocks.entrySet()) {
+                LazyMock lazy = LazyMock.of(mock.getValue());
+                Object materialized = lazy == null ? mock.getValue() : lazy.materialized();
+                if (materialized != null) {
+                    Mockito.reset(materialized);
+                    if (stubbing != null) {
+                        stubbing.replayOnto(mock.getKey(), materialized);
+                    }
+                }
+                pico.addComponent(mock.getKey(), mock.getValue());
+                registry.created(mock.getKey(), mock.getValue());
+            }
+            JournalOrMakeNext<T> next = new JournalOrMakeNext<T>(type, pico, injectionTypes, injectees, planned);
+            next.lazyMocks = lazyMocks;
+            next.defaultValues = defaultValues;
+            next.stubbing = stubbing;
+            next.rebindable = rebindable;
+            return next.journalTo(journal).make(mocker);
+        }
+
+    }
+
+    /**
+     * A bounded queue of instances made ahead of time, from a snapshot of the builder's settings. Injectees handed
+     * in are shared by all the instances, as they are by a Template's. close() stops the producers.
+     */
+    public static class Prefetch<T> implements Closeable {
+
+        private final JournalOrMakeNext<T> prototype;
+        private final Mocker mocker;
+        private final BlockingQueue<Ready<T>> queue;
+        private final ExecutorService producers;
+        private final AtomicLong stalls = new AtomicLong();
+        private final AtomicLong stallNanos = new AtomicLong();
+        private volatile boolean closed;
+
+        private Prefetch(JournalOrMakeNext<T> prototype, int depth, int producers, Mocker mocker) {
+            this.prototype = prototype;
+            this.mocker = mocker;
+            this.queue = new ArrayBlockingQueue<Ready<T>>(depth);
+            this.producers = Executors.newFixedThreadPool(producers, producerThreads());
+            for (int i = 0; i < producers; i++) {
+                this.producers.execute(new Runnable() {
+                    public void run() {
+                        produce();
+                    }
+                });
+            }
+        }
+
+        /**
+         * Virtual threads on a JVM that has them (found reflectively, as Mockpico builds for older ones), otherwise
+         * daemon platform threads.
+         */
+        private static ThreadFactory producerThreads() {
+            try {
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+                builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "mockpico-prefetch-", 0L);
+                return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            } catch (Exception e) {
+                return new ThreadFactory() {
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "mockpico-prefetch");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                };
+            }
+        }
+
+        private void produce() {
+            try {
+                while (!closed) {
+                    Ready<T> ready;
+                    try {
+                        ready = new Ready<T>(makeOne(), null);
+                    } catch (RuntimeException e) {
+                        ready = new Ready<T>(null, e);
+                    }
+                    queue.put(ready);
+                    if (ready.failure != null) {
+                        return;
                     }
-                    mocks.addComponent(parent, injectee);
-                } else {
-                    mocks.addComponent(injectee);
                 }
+            } catch (InterruptedException e) {
+                // closed
+            }
+        }
+
+        private T makeOne() {
+            MutablePicoContainer pico = makePicoContainer(prototype.mocks.getParent(),
+                    prototype.planned ? defaultInjectionTypes() : prototype.injectionTypes);
+            JournalOrMakeNext<T> next = prototype.copyInto(pico);
+            if (prototype.journal != Journal.NONE) {
+                next.journal = new Journal();
+                // for journalOf(..)
+                next.rebindable = true;
+            }
+            return next.make(mocker);
+        }
+
+        /**
+         * The next ready instance, waiting for one (a stall) if none is. A failure to make is thrown here, and by
+         * every take() after it.
+         */
+        public T take() {
+            Ready<T> ready = queue.poll();
+            if (ready == null) {
+                if (closed) {
+                    throw new PicoCompositionException("Prefetching of " + prototype.type.getName() + " was closed");
+                }
+                stalls.incrementAndGet();
+                long start = System.nanoTime();
+                try {
+                    ready = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new PicoCompositionException("Interrupted waiting for a " + prototype.type.getName(), e);
+                } finally {
+                    stallNanos.addAndGet(System.nanoTime() - start);
+                }
+            }
+            if (ready.failure != null) {
+                queue.offer(ready);
+                throw ready.failure;
+            }
+            return ready.made;
+        }
+
+        /**
+         * The Journal of an instance this made, which goes on recording lazy mocks materialized and rebindings.
+         * Journal.NONE unless journalTo(..) was asked for, in which case the instances are made rebindable().
+         */
+        public Journal journalOf(T made) {
+            if (prototype.journal == Journal.NONE) {
+                return Journal.NONE;
+            }
+            Remake remake = MockRegistry.remakeOf(made);
+            if (remake == null) {
+                throw new PicoCompositionException("Not made by Mockpico: " + made);
+            }
+            return remake.journal;
+        }
+
+        public int getQueueDepth() {
+            return queue.size();
+        }
+
+        /**
+         * How many take() calls found nothing ready and had to wait.
+         */
+        public long getStalls() {
+            return stalls.get();
+        }
+
+        public long getStallNanos() {
+            return stallNanos.get();
+        }
+
+        public void close() {
+            closed = true;
+            producers.shutdownNow();
+            queue.clear();
+            queue.offer(new Ready<T>(null, new PicoCompositionException("Prefetching of "
+                    + prototype.type.getName() + " was closed")));
+        }
+
+        @Override
+        public String toString() {
+            return "Prefetching " + prototype.type.getName() + ": " + getQueueDepth() + " ready, " + getStalls()
+                    + " stalls waiting " + TimeUnit.NANOSECONDS.toMillis(getStallNanos()) + "ms";
+        }
+
+        private static class Ready<T> {
+            private final T made;
+            private final RuntimeException failure;
+
+            private Ready(T made, RuntimeException failure) {
+                this.made = made;
+                this.failure = failure;
             }
-            return mocks.addComponent(type).getComponent(type);
+        }
+
+    }
+
+    public static class InjecteesOrJournalOrMakeAllNext {
+
+        private final Class<?>[] types;
+        private Object[] injectees = new Object[0];
+        private Journal journal = Journal.NONE;
+        private DefaultValues defaultValues = DefaultValues.standard();
+        private UsageReport usage;
+        private boolean rebindable;
+
+        private InjecteesOrJournalOrMakeAllNext(Class<?>[] types) {
+            this.types = types;
+        }
+
+        public InjecteesOrJournalOrMakeAllNext withInjectees(Object... injectees) {
+            this.injectees = injectees;
+            return this;
+        }
+
+        public InjecteesOrJournalOrMakeAllNext journalTo(Journal journal) {
+            this.journal = journal;
+            return this;
+        }
+
+        /**
+         * Each type's make() is reported on with the mocks it was the first to need.
+         */
+        public InjecteesOrJournalOrMakeAllNext trackUsageIn(UsageReport usage) {
+            this.usage = usage;
+            return this;
+        }
+
+        public InjecteesOrJournalOrMakeAllNext withDefaultValues(DefaultValues defaultValues) {
+            this.defaultValues = defaultValues;
+            return this;
+        }
+
+        /**
+         * As JournalOrMakeNext.rebindable(), for each of the types.
+         */
+        public InjecteesOrJournalOrMakeAllNext rebindable() {
+            this.rebindable = true;
+            return this;
+        }
+
+        public Made make() {
+            return make(new ClassMocker());
+        }
+
+        public Made make(Mocker mocker) {
+            InjectionType[] injectionTypes = defaultInjectionTypes();
+            MutablePicoContainer mocks = makePicoContainer(injectionTypes);
+            Made made = new Made(mocks);
+            Object[] injecteesToRegister = injectees;
+            for (Class<?> type : types) {
+                if (MockRegistry.forContainer(mocks).superseded(type)) {
+                    mocks.removeComponent(type);
+                }
+                made.put(type, make(type, mocks, injectionTypes, injecteesToRegister, mocker));
+                injecteesToRegister = new Object[0];
+            }
+            return made;
+        }
+
+        private <T> T make(Class<T> type, MutablePicoContainer mocks, InjectionType[] injectionTypes,
+                           Object[] injectees, Mocker mocker) {
+            JournalOrMakeNext<T> next = new JournalOrMakeNext<T>(type, mocks, injectionTypes, injectees, true);
+            next.rebindable = rebindable;
+            return next.journalTo(journal).withDefaultValues(defaultValues).trackUsageIn(usage).make(mocker);
+        }
+
+    }
+
+    public static class Made {
+
+        private final MutablePicoContainer mocks;
+        private final Map<Class<?>, Object> made = new LinkedHashMap<Class<?>, Object>();
+
+        private Made(MutablePicoContainer mocks) {
+            this.mocks = mocks;
+        }
+
+        private void put(Class<?> type, Object instance) {
+            made.put(type, instance);
+        }
+
+        public <T> T get(Class<T> type) {
+            return type.cast(made.get(type));
+        }
+
+        public Collection<Object> getAll() {
+            return Collections.unmodifiableCollection(made.values());
+        }
+
+        /**
+         * The one container holding every mock and injectee, for verifyNoMoreInteractionsForAll and resetAll.
+         */
+        public MutablePicoContainer getMocks() {
+            return mocks;
         }
 
     }
@@ -131,24 +866,28 @@ public class Mockpico {
         <T> T mock(java.lang.Class<T> classToMock);
     }
 
-    private static class ClassMocker implements Mocker {
+    static class ClassMocker implements Mocker {
         public <T> T mock(Class<T> classToMock) {
-            return Mockito.mock(classToMock, Mockito.RETURNS_DEEP_STUBS);
+            return MockFactory.forType(classToMock).mock();
         }
     }
 
     public static class InjecteesOrJournalOrMakeNext<T> extends JournalOrMakeNext<T> {
 
-        private InjecteesOrJournalOrMakeNext(Class<T> type, MutablePicoContainer mocks, Object[] injectees) {
-            super(type, mocks, injectees);
+        private InjecteesOrJournalOrMakeNext(Class<T> type, MutablePicoContainer mocks, InjectionType[] injectionTypes) {
+            super(type, mocks, injectionTypes, new Object[0], false);
         }
 
-        private InjecteesOrJournalOrMakeNext(Class<T> type) {
-            super(type, makePicoContainer(DEFAULT_INJECTION_TYPES), new Object[0]);
+        private InjecteesOrJournalOrMakeNext(Class<T> type, InjectionType[] injectionTypes) {
+            this(type, new EmptyPicoContainer(), injectionTypes);
+        }
+
+        private InjecteesOrJournalOrMakeNext(Class<T> type, PicoContainer parent, InjectionType[] injectionTypes) {
+            super(type, makePicoContainer(parent, injectionTypes), injectionTypes, new Object[0], true);
         }
 
         public JournalOrMakeNext<T> withInjectees(Object... injectees) {
-            return new JournalOrMakeNext<T>(type, mocks, injectees);
+            return new JournalOrMakeNext<T>(type, mocks, injectionTypes, injectees, planned);
         }
 
     }
@@ -156,19 +895,26 @@ public class Mockpico {
     public static class ContainerOrInjectionTypesOrInjecteesOrJournalOrMakeNext<T> extends InjecteesOrJournalOrMakeNext<T> {
 
         private ContainerOrInjectionTypesOrInjecteesOrJournalOrMakeNext(Class<T> type) {
-            super(type);
+            super(type, defaultInjectionTypes());
         }
 
         public InjecteesOrJournalOrMakeNext<T> using(MutablePicoContainer mocks) {
-            return new InjecteesOrJournalOrMakeNext<T>(type, mocks, new Object[0]);
+            return new InjecteesOrJournalOrMakeNext<T>(type, mocks, null);
+        }
+
+        /**
+         * Makes into a child of the shared injectees' container, so they are found there rather than built again.
+         */
+        public InjecteesOrJournalOrMakeNext<T> withSharedInjectees(SharedInjectees shared) {
+            return new InjecteesOrJournalOrMakeNext<T>(type, shared.getContainer(), defaultInjectionTypes());
         }
 
         public InjecteesOrJournalOrMakeNext<T> withInjectionTypes(InjectionType... injectionFactories) {
-            return using(makePicoContainer(injectionFactories));
+            return new InjecteesOrJournalOrMakeNext<T>(type, makePicoContainer(injectionFactories), injectionFactories);
         }
 
         public InjecteesOrJournalOrMakeNext<T> withSetters() {
-            List<InjectionType> injectionTypes = new ArrayList<InjectionType>(Arrays.asList(DEFAULT_INJECTION_TYPES));
+            List<InjectionType> injectionTypes = new ArrayList<InjectionType>(Arrays.asList(defaultInjectionTypes()));
             injectionTypes.add(SDI());
             return withInjectionTypes(injectionTypes.toArray(new InjectionType[injectionTypes.size()]));
         }
@@ -179,7 +925,7 @@ public class Mockpico {
     }
 
     public static MutablePicoContainer makePicoContainer(PicoContainer parent) {
-        return makePicoContainer(parent, DEFAULT_INJECTION_TYPES);
+        return makePicoContainer(parent, defaultInjectionTypes());
     }
 
     public static MutablePicoContainer makePicoContainer(InjectionType... injectionFactories) {
@@ -203,24 +949,41 @@ public class Mockpico {
     protected @interface AnnotationNotFound {
     }
 
-    private static class MockpicoComponentMonitor extends NullComponentMonitor {
+    private static Class<? extends Annotation>[] injectionAnnotations(Class<? extends Annotation>... annotations) {
+        return annotations;
+    }
+
+    private static class MockpicoComponentMonitor extends NullComponentMonitor implements NanoTimedMonitor {
 
         private final Journal journal;
         private final Mocker mocker;
+        private final MockRegistry registry;
+        private final boolean lazyMocks;
+        private final DefaultValues defaultValues;
+        private final Metrics metrics;
+        private final UsageReport.Made usage;
+        private final StubbingProfile stubbing;
 
-        private MockpicoComponentMonitor(Journal journal, Mocker mocker) {
+        private static ExecutorService mockingPool;
+
+        private MockpicoComponentMonitor(Journal journal, Mocker mocker, MockRegistry registry, boolean lazyMocks,
+                                         DefaultValues defaultValues, Metrics metrics, UsageReport.Made usage,
+                                         StubbingProfile stubbing) {
             this.journal = journal;
             this.mocker = mocker;
+            this.registry = registry;
+            this.lazyMocks = lazyMocks;
+            this.defaultValues = defaultValues;
+            this.metrics = metrics;
+            this.usage = usage;
+            this.stubbing = stubbing;
         }
 
         @Override
         public <T> void instantiated(PicoContainer pico, ComponentAdapter<T> componentAdapter, Constructor<T> constructor,
                                      Object instantiated, Object[] injected, long duration) {
-            journal.append("Constructor being injected:\n");
             super.instantiated(pico, componentAdapter, constructor, instantiated, injected, duration);
-            for (int i = 0; i < injected.length; i++) {
-                journal.append(new Journal.Arg(i, constructor.getParameterTypes()[i], injected[i]));
-            }
+            journal.constructorInjected(constructor, injected, TimeUnit.MILLISECONDS.toNanos(duration));
         }
 
         @Override
@@ -228,50 +991,184 @@ public class Mockpico {
                             long duration, Object retVal, Object... args) {
             super.invoked(pico, componentAdapter, member, instance, duration, retVal, args);
             if (member instanceof Method) {
-                Method method = (Method) member;
-                journal.append("Method '" + method.getName() + "' being injected: \n");
-                for (int i = 0; i < args.length; i++) {
-                    journal.append(new Journal.Arg(i, method.getParameterTypes()[i], args[i]));
-                }
+                journal.methodInjected((Method) member, args, TimeUnit.MILLISECONDS.toNanos(duration));
+            } else {
+                journal.fieldInjected(member, args[0], TimeUnit.MILLISECONDS.toNanos(duration));
+            }
+        }
+
+        public <T> void instantiatedIn(PicoContainer pico, ComponentAdapter<T> componentAdapter,
+                                       Constructor<T> constructor, Object instantiated, Object[] injected, long nanos) {
+            journal.constructorInjected(constructor, injected, nanos);
+        }
+
+        public void invokedIn(PicoContainer pico, ComponentAdapter<?> componentAdapter, Member member, Object instance,
+                              long nanos, Object retVal, Object... args) {
+            if (member instanceof Method) {
+                journal.methodInjected((Method) member, args, nanos);
             } else {
-                journal.append(new Journal.Field(member, args[0]));
+                journal.fieldInjected(member, args[0], nanos);
             }
         }
 
         @Override
         public Object noComponentFound(MutablePicoContainer pico, Object classToMock) {
-            if (classToMock instanceof Type) {
-                if (classToMock == Integer.class) {
-                    return 0;
-                } else if (classToMock == Long.class) {
-                    return (long) 0;
-                } else if (classToMock == Double.class) {
-                    return (double) 0;
-                } else if (classToMock == Byte.class) {
-                    return (byte) 0;
-                } else if (classToMock == Short.class) {
-                    return (short) 0;
-                } else if (classToMock == Float.class) {
-                    return (float) 0;
-                } else if (classToMock == Boolean.class) {
-                    return false;
-                } else if (classToMock == Character.class) {
-                    return (char) 0;
-                } else if (classToMock == String.class) {
-                    return "";
-                } else if (classToMock instanceof ParameterizedType) {
-                    Object mocked = mocker.mock((Class<?>) ((ParameterizedType) classToMock).getRawType());
-                    pico.addComponent(classToMock, mocked);
-                    return mocked;
-                } else if (classToMock instanceof Class) {
-                    Object mocked = mocker.mock((Class) classToMock);
-                    pico.addComponent(classToMock, mocked);
-                    return mocked;
+            if (classToMock instanceof Class || classToMock instanceof ParameterizedType) {
+                Class<?> raw = rawType((Type) classToMock);
+                DefaultValues.Provider provider = defaultValues.providerFor(raw);
+                if (provider != null) {
+                    return provider.valueFor(raw);
                 }
+                return register(pico, classToMock, mock(classToMock, raw));
             }
             return null;
         }
 
+        private static synchronized ExecutorService mockingPool() {
+            if (mockingPool == null) {
+                mockingPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "mockpico-mocking");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            return mockingPool;
+        }
+
+        /**
+         * Mocks the plan's unsatisfied dependencies before anything asks for them. They are journalled and
+         * registered in the order the plan lists them, however the mocking was spread over threads.
+         */
+        private void mockUpFront(MutablePicoContainer pico, InjectionPlan plan, boolean parallel) {
+            Set<Type> unsatisfied = new LinkedHashSet<Type>();
+            addUnsatisfied(pico, plan.getConstructorParameterTypes(), unsatisfied);
+            addUnsatisfied(pico, plan.getFieldTypes(), unsatisfied);
+            for (Type[] parameterTypes : plan.getMethodParameterTypes()) {
+                addUnsatisfied(pico, parameterTypes, unsatisfied);
+            }
+            final Type[] keys = unsatisfied.toArray(new Type[unsatisfied.size()]);
+            final Object[] made = new Object[keys.length];
+            final long[] nanos = new long[keys.length];
+            final long[] bytes = new long[keys.length];
+            List<Future<?>> mocking = new ArrayList<Future<?>>();
+            for (int i = 0; i < keys.length; i++) {
+                final int index = i;
+                final Class<?> raw = rawType(keys[i]);
+                if (lazyMocks && raw.isInterface()) {
+                    made[i] = placeholder(keys[i], raw);
+                    nanos[i] = -1;
+                    bytes[i] = -1;
+                } else if (parallel) {
+                    mocking.add(mockingPool().submit(new Runnable() {
+                        public void run() {
+                            long allocated = usage == null ? -1 : UsageReport.allocatedBytes();
+                            long start = System.nanoTime();
+                            made[index] = mocker.mock(raw);
+                            nanos[index] = System.nanoTime() - start;
+                            bytes[index] = allocated < 0 ? -1 : UsageReport.allocatedBytes() - allocated;
+                        }
+                    }));
+                } else {
+                    long allocated = usage == null ? -1 : UsageReport.allocatedBytes();
+                    long start = System.nanoTime();
+                    made[i] = mocker.mock(raw);
+                    nanos[i] = System.nanoTime() - start;
+                    bytes[i] = allocated < 0 ? -1 : UsageReport.allocatedBytes() - allocated;
+                }
+            }
+            for (Future<?> mock : mocking) {
+                try {
+                    mock.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new PicoCompositionException("Interrupted mocking dependencies of " + plan.getType().getName(), e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new PicoCompositionException("Dependencies of " + plan.getType().getName() + " could not be mocked", e.getCause());
+                }
+            }
+            for (int i = 0; i < keys.length; i++) {
+                if (nanos[i] >= 0) {
+                    journal.mockCreated(rawType(keys[i]), made[i], nanos[i]);
+                    if (metrics != null) {
+                        metrics.mockCreated(rawType(keys[i]), nanos[i]);
+                    }
+                    track(keys[i], rawType(keys[i]), made[i], nanos[i], bytes[i]);
+                }
+                register(pico, keys[i], made[i]);
+            }
+        }
+
+        private void addUnsatisfied(MutablePicoContainer pico, Type[] types, Set<Type> unsatisfied) {
+            for (Type type : types) {
+                if (type instanceof Class && ((Class<?>) type).isPrimitive() || defaultValues.providerFor(rawType(type)) != null) {
+                    continue;
+                }
+                // as InjectionPlan.resolve(..) would find them: a generic type only under its own key
+                if (pico.getComponentAdapter(type) == null
+                        && (type instanceof ParameterizedType || !InjectionPlan.hasAdapterFor(pico, rawType(type)))) {
+                    unsatisfied.add(type);
+                }
+            }
+        }
+
+        private static Class<?> rawType(Type type) {
+            return type instanceof ParameterizedType ? (Class<?>) ((ParameterizedType) type).getRawType() : (Class<?>) type;
+        }
+
+        private Object mock(Object key, Class<?> classToMock) {
+            if (lazyMocks && classToMock.isInterface()) {
+                // concrete classes would need a generated subclass anyway, so they are mocked straight away
+                return placeholder(key, classToMock);
+            }
+            long bytes = usage == null ? -1 : UsageReport.allocatedBytes();
+            long start = System.nanoTime();
+            Object mocked = mocker.mock(classToMock);
+            long nanos = System.nanoTime() - start;
+            journal.mockCreated(classToMock, mocked, nanos);
+            if (metrics != null) {
+                metrics.mockCreated(classToMock, nanos);
+            }
+            track(key, classToMock, mocked, nanos, bytes < 0 ? -1 : UsageReport.allocatedBytes() - bytes);
+            return mocked;
+        }
+
+        private Object placeholder(Object key, Class<?> classToMock) {
+            final Mocker lazyMocker = stubbing == null ? mocker : stubbing.replayingOnto(key, mocker);
+            if (usage == null) {
+                return LazyMock.placeholder(classToMock, lazyMocker, journal);
+            }
+            final UsageReport.Dependency dependency = usage.placeheld(key, classToMock);
+            registry.track(dependency);
+            return LazyMock.placeholder(classToMock, new Mocker() {
+                public <T> T mock(Class<T> type) {
+                    T mock = lazyMocker.mock(type);
+                    dependency.materialized();
+                    return mock;
+                }
+            }, journal);
+        }
+
+        private void track(Object key, Class<?> classToMock, Object mocked, long nanos, long bytes) {
+            if (usage != null) {
+                registry.track(usage.mocked(key, classToMock, mocked, nanos, bytes));
+            }
+        }
+
+        private Object register(MutablePicoContainer pico, Object key, Object mocked) {
+            if (stubbing != null) {
+                stubbing.replayOnto(key, mocked);
+            }
+            pico.addComponent(key, mocked);
+            if (Mockito.mockingDetails(mocked).isMock() || LazyMock.of(mocked) != null) {
+                registry.created(key, mocked);
+            }
+            return mocked;
+        }
 
     }
 }
@@ -0,0 +1,277 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import com.picocontainer.MutablePicoContainer;
+import com.picocontainer.PicoCompositionException;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes the object under test and its mocks once for a whole test class, and resets the mocks a
+ * test called or stubbed before the next one. An object that holds state of its own, or whose fields
+ * a test assigned, is made afresh for the next test instead. The rule has to live in a static field
+ * to outlast each test's instance, so it is declared twice - JUnit won't have a static @Rule:
+ *
+ * <pre>
+ * &#064;ClassRule
+ * public static MockpicoRule&lt;FooController&gt; shared = MockpicoRule.forType(FooController.class);
+ * &#064;Rule
+ * public MockpicoRule&lt;FooController&gt; fc = shared;
+ *
+ * &#064;Test
+ * public void ...() {
+ *     fc.get().doSomething();
+ *     verify(fc.mock(Bar.class)).done();
+ * }
+ * </pre>
+ */
+public class MockpicoRule<T> implements TestRule {
+
+    private final Class<T> type;
+    private Object[] injectees = new Object[0];
+    private boolean verifying;
+    private boolean rebuilding;
+
+    private T made;
+    private MutablePicoContainer mocks;
+    private boolean stateful;
+    private Snapshot snapshot;
+    private int builds;
+    private int reuses;
+    private long buildNanos;
+    private long resetNanos;
+
+    private MockpicoRule(Class<T> type) {
+        this.type = type;
+    }
+
+    public static <T> MockpicoRule<T> forType(Class<T> type) {
+        return new MockpicoRule<T>(type);
+    }
+
+    public MockpicoRule<T> withInjectees(Object... injectees) {
+        this.injectees = injectees;
+        return this;
+    }
+
+    /**
+     * verifyNoMoreInteractionsForAll after each test that passed.
+     */
+    public MockpicoRule<T> verifyingNoMoreInteractions() {
+        this.verifying = true;
+        return this;
+    }
+
+    /**
+     * For state the rule can't see, such as a static, or a field of an injectee.
+     */
+    public MockpicoRule<T> rebuiltForEachTest() {
+        this.rebuilding = true;
+        return this;
+    }
+
+    public Statement apply(final Statement base, Description description) {
+        if (description.isSuite()) {
+            return new Statement() {
+                public void evaluate() throws Throwable {
+                    try {
+                        base.evaluate();
+                    } finally {
+                        made = null;
+                        mocks = null;
+                    }
+                }
+            };
+        }
+        return new Statement() {
+            public void evaluate() throws Throwable {
+                before();
+                try {
+                    base.evaluate();
+                    if (verifying) {
+                        Mockpico.verifyNoMoreInteractionsForAll(mocks);
+                    }
+                } finally {
+                    after();
+                }
+            }
+        };
+    }
+
+    public T get() {
+        return made;
+    }
+
+    public MutablePicoContainer getMocks() {
+        return mocks;
+    }
+
+    /**
+     * The mock made for a dependency type, ready for when(..) and verify(..).
+     */
+    public <M> M mock(Class<M> dependencyType) {
+        return Mockpico.mockOf(mocks.getComponent(dependencyType));
+    }
+
+    public int getBuilds() {
+        return builds;
+    }
+
+    public int getReuses() {
+        return reuses;
+    }
+
+    /**
+     * What the reused tests would have spent making the object, less what resetting their mocks cost.
+     */
+    public long getSavedNanos() {
+        return builds == 0 ? 0 : reuses * (buildNanos / builds) - resetNanos;
+    }
+
+    private synchronized void before() {
+        if (made == null) {
+            long start = System.nanoTime();
+            Mockpico.Made all = Mockpico.mockDepsForAll(type).withInjectees(injectees).make();
+            made = all.get(type);
+            mocks = all.getMocks();
+            buildNanos += System.nanoTime() - start;
+            builds++;
+            stateful = rebuilding || holdsState(made, mocks);
+            snapshot = Snapshot.of(made);
+        } else {
+            reuses++;
+        }
+    }
+
+    private synchronized void after() {
+        if (stateful || snapshot.changedIn(made)) {
+            made = null;
+            mocks = null;
+        } else {
+            long start = System.nanoTime();
+            Mockpico.resetTouched(mocks);
+            resetNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * A field holding something mutable that isn't a dependency could carry one test's doings into the next without
+     * itself changing. Fields holding a dependency, something immutable or a primitive are watched instead, see
+     * Snapshot.
+     */
+    static boolean holdsState(Object instance, MutablePicoContainer mocks) {
+        Map<Object, Boolean> dependencies = new IdentityHashMap<Object, Boolean>();
+        for (Object component : mocks.getComponents()) {
+            dependencies.put(component, Boolean.TRUE);
+        }
+        for (Field field : fieldsOf(instance)) {
+            if (!field.getType().isPrimitive()) {
+                Object value = valueOf(field, instance);
+                if (value != null && !dependencies.containsKey(value) && !isImmutable(value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The instance's fields as make() left them. A test that assigns one, even a field injection set, leaves state
+     * behind, and the object is made afresh for the next test.
+     */
+    static class Snapshot {
+        private final List<Field> fields;
+        private final Object[] values;
+
+        private Snapshot(List<Field> fields, Object[] values) {
+            this.fields = fields;
+            this.values = values;
+        }
+
+        static Snapshot of(Object instance) {
+            List<Field> fields = fieldsOf(instance);
+            Object[] values = new Object[fields.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = valueOf(fields.get(i), instance);
+            }
+            return new Snapshot(fields, values);
+        }
+
+        boolean changedIn(Object instance) {
+            for (int i = 0; i < values.length; i++) {
+                Field field = fields.get(i);
+                Object value = valueOf(field, instance);
+                if (field.getType().isPrimitive() ? !values[i].equals(value) : values[i] != value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static List<Field> fieldsOf(Object instance) {
+        List<Field> fields = new ArrayList<Field>();
+        for (Class<?> c = instance.getClass(); c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private static Object valueOf(Field field, Object instance) {
+        try {
+            return field.get(instance);
+        } catch (IllegalAccessException e) {
+            throw new PicoCompositionException("Field '" + field.getName() + "' could not be read", e);
+        }
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value instanceof String || value instanceof Integer || value instanceof Long || value instanceof Double
+                || value instanceof Float || value instanceof Short || value instanceof Byte || value instanceof Boolean
+                || value instanceof Character || value instanceof BigInteger || value instanceof BigDecimal
+                || value instanceof Enum || value instanceof Class;
+    }
+
+    @Override
+    public String toString() {
+        return "MockpicoRule for " + type.getName() + ": made " + builds + " time(s), reused " + reuses
+                + " time(s), " + TimeUnit.NANOSECONDS.toMillis(getSavedNanos()) + "ms saved";
+    }
+
+}
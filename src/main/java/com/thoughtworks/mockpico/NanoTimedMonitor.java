@@ -0,0 +1,42 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import com.picocontainer.ComponentAdapter;
+import com.picocontainer.PicoContainer;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+
+/**
+ * A ComponentMonitor that can be told durations in nanoseconds. PicoContainer's own instantiated(..) and invoked(..)
+ * take milliseconds, which most injections are too quick to register in; Mockpico's injectors time with nanoTime()
+ * and use these when the monitor has them.
+ */
+interface NanoTimedMonitor {
+
+    <T> void instantiatedIn(PicoContainer pico, ComponentAdapter<T> componentAdapter, Constructor<T> constructor,
+                            Object instantiated, Object[] injected, long nanos);
+
+    void invokedIn(PicoContainer pico, ComponentAdapter<?> componentAdapter, Member member, Object instance,
+                   long nanos, Object retVal, Object... args);
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+/**
+ * Mocks interfaces with JDK proxies that answer zeros, false, empty collections or null, and hands concrete
+ * classes to another Mocker (Mockito deep stubs by default). A proxy only gets a Mockito mock behind it when
+ * the test asks for one with Mockpico.mockOf(..), to stub or verify; interactions before that are not recorded.
+ */
+public class ProxyMocker implements Mockpico.Mocker {
+
+    private final Mockpico.Mocker fallback;
+
+    public ProxyMocker() {
+        this(new Mockpico.ClassMocker());
+    }
+
+    public ProxyMocker(Mockpico.Mocker fallback) {
+        this.fallback = fallback;
+    }
+
+    public <T> T mock(Class<T> classToMock) {
+        if (classToMock.isInterface()) {
+            return classToMock.cast(LazyMock.nullObject(classToMock, fallback));
+        }
+        return fallback.mock(classToMock);
+    }
+
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import com.picocontainer.MutablePicoContainer;
+import com.picocontainer.PicoCompositionException;
+import com.picocontainer.PicoContainer;
+import com.picocontainer.containers.ImmutablePicoContainer;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Real injectees that are slow to build (parsers, template engines, big immutable configuration) built once and
+ * shared by every make() handed them, from any thread. They are all built up front and the container holding them
+ * is read-only, so after construction it is only ever read. Each make() gets a child container of its own: the mocks
+ * it makes go there, never into the shared one, and a shared injectee can't depend on anything that isn't shared.
+ */
+public class SharedInjectees {
+
+    private static final Map<List<Class<?>>, SharedInjectees> PER_JVM = new HashMap<List<Class<?>>, SharedInjectees>();
+
+    private final PicoContainer container;
+    private final long buildNanos;
+
+    private SharedInjectees(Object[] injectees) {
+        long start = System.nanoTime();
+        MutablePicoContainer pico = Mockpico.makePicoContainer();
+        for (Object injectee : injectees) {
+            if (!(injectee instanceof Class) && Mockito.mockingDetails(injectee).isMock()) {
+                throw new PicoCompositionException("A mock can't be shared, as one test's stubbing and calls would "
+                        + "be seen by the next: " + injectee);
+            }
+            pico.addComponent(injectee);
+        }
+        pico.getComponents();
+        this.buildNanos = System.nanoTime() - start;
+        this.container = new ImmutablePicoContainer(pico);
+    }
+
+    /**
+     * Classes are built by the container (in the order their dependencies need), instances are shared as they are.
+     */
+    public static SharedInjectees of(Object... injectees) {
+        return new SharedInjectees(injectees);
+    }
+
+    /**
+     * The same shared injectees for the same classes, however many test classes ask, for as long as the JVM runs.
+     */
+    public static SharedInjectees forJvm(Class<?>... types) {
+        List<Class<?>> key = Arrays.asList(types.clone());
+        synchronized (PER_JVM) {
+            SharedInjectees shared = PER_JVM.get(key);
+            if (shared == null) {
+                shared = new SharedInjectees(types);
+                PER_JVM.put(key, shared);
+            }
+            return shared;
+        }
+    }
+
+    /**
+     * Read-only. To be the parent of a container handed to using(..), when the default injection types won't do.
+     */
+    public PicoContainer getContainer() {
+        return container;
+    }
+
+    public <T> T get(Class<T> type) {
+        return container.getComponent(type);
+    }
+
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Shared injectees: " + container.getComponents() + ", built in "
+                + (buildNanos / 1000000) + "ms";
+    }
+
+}
@@ -0,0 +1,367 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import com.picocontainer.PicoCompositionException;
+import com.picocontainer.PicoContainer;
+import org.mockito.internal.invocation.InvocationMatcher;
+import org.mockito.internal.stubbing.InvocationContainerImpl;
+import org.mockito.internal.stubbing.StubbedInvocationMatcher;
+import org.mockito.internal.stubbing.answers.Returns;
+import org.mockito.internal.stubbing.defaultanswers.ReturnsDeepStubs;
+import org.mockito.internal.util.MockUtil;
+import org.mockito.invocation.Invocation;
+import org.mockito.invocation.Location;
+import org.mockito.invocation.StubInfo;
+import org.mockito.stubbing.Answer;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The when(..).thenReturn(..) stubbings of the mocks Mockpico made for one object, recorded once and replayed
+ * onto the mocks of later make() calls without going through the stubbing DSL again. They are keyed by
+ * dependency type, so whichever Mocker made a mock, if it is a Mockito one it gets the stubbings recorded for
+ * its type. Deep stubs are recorded level by level, and each replay gets deep mocks of its own.
+ * <p>
+ * Stubbings a test adds after make() win over replayed ones, as later stubbings always do. Consecutive answers
+ * start again from the first for each replay, but answers are shared by every replay, so stateful ones of your own
+ * are not reset between them.
+ */
+public class StubbingProfile {
+
+    private static final MockUtil MOCK_UTIL = new MockUtil();
+    // looked up when first needed, so that a Mockito without it fails only what needs it
+    private static volatile Field answers;
+
+    private final String name;
+    private final Map<Object, List<Stub>> stubs = new LinkedHashMap<Object, List<Stub>>();
+
+    private StubbingProfile(String name) {
+        this.name = name;
+    }
+
+    /**
+     * From the mocks Mockpico made for an object's dependencies, as a test left them. The object must have been
+     * made rebindable(), for its mocks to be known.
+     */
+    public static StubbingProfile record(String name, Object made) {
+        MockRegistry registry = MockRegistry.registryOf(made);
+        if (registry == null) {
+            throw new PicoCompositionException("Not made by Mockpico, or not rebindable(): " + made);
+        }
+        return record(name, registry);
+    }
+
+    /**
+     * From the mocks Mockpico made into a container handed to using(..).
+     */
+    public static StubbingProfile record(String name, PicoContainer mocks) {
+        return record(name, MockRegistry.forContainer(mocks));
+    }
+
+    private static StubbingProfile record(String name, MockRegistry registry) {
+        StubbingProfile profile = new StubbingProfile(name);
+        for (Map.Entry<Object, Object> created : registry.getCreated().entrySet()) {
+            LazyMock lazy = LazyMock.of(created.getValue());
+            Object mock = lazy == null ? created.getValue() : lazy.materialized();
+            if (mock != null && MOCK_UTIL.isMock(mock)) {
+                List<Stub> recorded = recordFrom(mock);
+                if (!recorded.isEmpty()) {
+                    profile.stubs.put(created.getKey(), recorded);
+                }
+            }
+        }
+        return profile;
+    }
+
+    private static List<Stub> recordFrom(Object mock) {
+        InvocationContainerImpl container = (InvocationContainerImpl) MOCK_UTIL.getMockHandler(mock).getInvocationContainer();
+        List<StubbedInvocationMatcher> stubbed;
+        synchronized (container.getStubbedInvocations()) {
+            stubbed = new ArrayList<StubbedInvocationMatcher>(container.getStubbedInvocations());
+        }
+        // newest first, as Mockito holds them
+        List<Stub> recorded = new ArrayList<Stub>(stubbed.size());
+        for (StubbedInvocationMatcher matcher : stubbed) {
+            recorded.add(new Stub(matcher));
+        }
+        return recorded;
+    }
+
+    private static Field answersField() {
+        Field field = answers;
+        if (field == null) {
+            field = answersField(StubbedInvocationMatcher.class, "answers");
+            answers = field;
+        }
+        return field;
+    }
+
+    /**
+     * Where a Mockito stubbing keeps its answers, which it has no public way to hand over. A Mockito without the
+     * field fails recording with this, rather than giving a profile that leaves stubbings out.
+     */
+    static Field answersField(Class<?> matcherType, String name) {
+        try {
+            Field field = matcherType.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException e) {
+            throw cannotRecord(matcherType, name, e);
+        } catch (SecurityException e) {
+            throw cannotRecord(matcherType, name, e);
+        }
+    }
+
+    private static PicoCompositionException cannotRecord(Class<?> matcherType, String name, Exception e) {
+        return new PicoCompositionException("This Mockito can't have its stubbings recorded, as " + matcherType.getName()
+                + " has no accessible '" + name + "' field: stub these mocks by hand instead", e);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The dependency keys (classes, or generic types) that have stubbings.
+     */
+    public Collection<Object> getKeys() {
+        return stubs.keySet();
+    }
+
+    /**
+     * Stubbings recorded directly on the dependencies' mocks, not counting deep ones.
+     */
+    public int size() {
+        int size = 0;
+        for (List<Stub> recorded : stubs.values()) {
+            size += recorded.size();
+        }
+        return size;
+    }
+
+    /**
+     * Stubs a mock made for the dependency key as the recorded one was. Anything not a Mockito mock is passed by.
+     */
+    void replayOnto(Object key, Object mock) {
+        List<Stub> recorded = stubs.get(key);
+        if (recorded != null && MOCK_UTIL.isMock(mock)) {
+            replay(recorded, mock);
+        }
+    }
+
+    /**
+     * For lazy mocks, replayed onto as they are materialized.
+     */
+    Mockpico.Mocker replayingOnto(final Object key, final Mockpico.Mocker mocker) {
+        if (!stubs.containsKey(key)) {
+            return mocker;
+        }
+        return new Mockpico.Mocker() {
+            public <T> T mock(Class<T> classToMock) {
+                T mock = mocker.mock(classToMock);
+                replayOnto(key, mock);
+                return mock;
+            }
+        };
+    }
+
+    /**
+     * Put in place by a replay, rather than by a test.
+     */
+    static boolean isReplayed(StubbedInvocationMatcher stubbing) {
+        return stubbing.getInvocation() instanceof ReplayedInvocation;
+    }
+
+    private static void replay(List<Stub> recorded, Object mock) {
+        InvocationContainerImpl container = (InvocationContainerImpl) MOCK_UTIL.getMockHandler(mock).getInvocationContainer();
+        List<StubbedInvocationMatcher> stubbed = container.getStubbedInvocations();
+        synchronized (stubbed) {
+            // oldest first onto the front, so they end up in the recorded order and a test's own stubbings go before
+            for (int i = recorded.size() - 1; i >= 0; i--) {
+                stubbed.add(0, recorded.get(i).replayOnto(mock));
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Stubbing profile '" + name + "': " + size() + " stubbings of " + stubs.size() + " dependencies";
+    }
+
+    private static class Stub {
+        private final Invocation invocation;
+        // of hamcrest Matchers, which only Mockito itself need see
+        private final List matchers;
+        private final List<Object> answers = new ArrayList<Object>();
+
+        private Stub(StubbedInvocationMatcher matcher) {
+            this.invocation = matcher.getInvocation();
+            this.matchers = matcher.getMatchers();
+            for (Answer<?> answer : answersOf(matcher)) {
+                answers.add(isDeepStub(answer) ? deep(answer) : answer);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static List<Answer<?>> answersOf(StubbedInvocationMatcher matcher) {
+            try {
+                Collection<Answer<?>> answers = (Collection<Answer<?>>) answersField().get(matcher);
+                synchronized (answers) {
+                    return new ArrayList<Answer<?>>(answers);
+                }
+            } catch (IllegalAccessException e) {
+                throw new PicoCompositionException("Could not record " + matcher, e);
+            }
+        }
+
+        // the answer ReturnsDeepStubs (or MockPolicy's own) stubs a call with, to hand back the same deep mock
+        private static boolean isDeepStub(Answer<?> answer) {
+            Class<?> enclosing = answer.getClass().getEnclosingClass();
+            return enclosing == ReturnsDeepStubs.class || enclosing == MockPolicy.DeepStubs.class;
+        }
+
+        private Object deep(Answer<?> answer) {
+            try {
+                Object deeper = answer.answer(invocation);
+                return MOCK_UTIL.isMock(deeper) ? new Deep(deeper) : answer;
+            } catch (Throwable e) {
+                return answer;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private StubbedInvocationMatcher replayOnto(Object mock) {
+            Invocation replayed = new ReplayedInvocation(invocation, mock);
+            StubbedInvocationMatcher stubbed = null;
+            for (Object answer : answers) {
+                Answer<?> replayedAnswer = answer instanceof Deep ? ((Deep) answer).replay() : (Answer<?>) answer;
+                if (stubbed == null) {
+                    stubbed = new StubbedInvocationMatcher(new InvocationMatcher(replayed, matchers), replayedAnswer);
+                } else {
+                    stubbed.addAnswer(replayedAnswer);
+                }
+            }
+            return stubbed;
+        }
+    }
+
+    private static class Deep {
+        private final MockFactory<?> factory;
+        private final List<Stub> stubs;
+
+        private Deep(Object deeper) {
+            // deep mocks are made the way the recorded one was, and as quickly as the default Mocker makes mocks
+            this.factory = MockFactory.forSettings(MOCK_UTIL.getMockHandler(deeper).getMockSettings());
+            this.stubs = recordFrom(deeper);
+        }
+
+        private Answer<?> replay() {
+            Object deeper = factory.mock();
+            StubbingProfile.replay(stubs, deeper);
+            return new Returns(deeper);
+        }
+    }
+
+    /**
+     * The recorded invocation, but on another mock. Mockito's own would take a stack trace for its location. The
+     * mock is held weakly, as the stubbing it is part of may be held for longer than the mock, see UsageReport.
+     */
+    private static class ReplayedInvocation implements Invocation {
+        private final Invocation recorded;
+        private final Reference<Object> mock;
+        private boolean verified;
+        private boolean ignoredForVerification;
+        private StubInfo stubInfo;
+
+        private ReplayedInvocation(Invocation recorded, Object mock) {
+            this.recorded = recorded;
+            this.mock = new WeakReference<Object>(mock);
+        }
+
+        public Object getMock() {
+            return mock.get();
+        }
+
+        public Method getMethod() {
+            return recorded.getMethod();
+        }
+
+        public Object[] getArguments() {
+            return recorded.getArguments();
+        }
+
+        public Object[] getRawArguments() {
+            return recorded.getRawArguments();
+        }
+
+        public Object callRealMethod() throws Throwable {
+            throw new PicoCompositionException("A replayed stubbing has no real method to call: " + recorded);
+        }
+
+        public int getSequenceNumber() {
+            return recorded.getSequenceNumber();
+        }
+
+        public Location getLocation() {
+            return recorded.getLocation();
+        }
+
+        public boolean isVerified() {
+            return verified;
+        }
+
+        public void markVerified() {
+            verified = true;
+        }
+
+        public StubInfo stubInfo() {
+            return stubInfo;
+        }
+
+        public void markStubbed(StubInfo stubInfo) {
+            this.stubInfo = stubInfo;
+        }
+
+        public boolean isIgnoredForVerification() {
+            return ignoredForVerification;
+        }
+
+        public void ignoreForVerification() {
+            ignoredForVerification = true;
+        }
+
+        @Override
+        public String toString() {
+            return recorded.toString();
+        }
+    }
+
+}
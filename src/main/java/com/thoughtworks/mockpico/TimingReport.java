@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timings from the journals of many make() calls, added up per mocked type and per class injected into.
+ */
+public class TimingReport {
+
+    private static final Comparator<Entry> MOST_TIME_FIRST = new Comparator<Entry>() {
+        public int compare(Entry one, Entry two) {
+            return one.totalNanos < two.totalNanos ? 1 : (one.totalNanos == two.totalNanos ? 0 : -1);
+        }
+    };
+
+    private final Map<String, Entry> mocks = new HashMap<String, Entry>();
+    private final Map<String, Entry> injections = new HashMap<String, Entry>();
+    private int journals;
+
+    public synchronized void add(Journal journal) {
+        journals++;
+        for (Journal.Event event : journal.getEvents()) {
+            switch (event.getKind()) {
+                case MOCKED:
+                case MATERIALIZED:
+                    entry(mocks, event.getType().getName()).add(event.getNanos());
+                    break;
+                case CONSTRUCTOR:
+                case FIELD:
+                case METHOD:
+                    entry(injections, event.getMember().getDeclaringClass().getName()).add(event.getNanos());
+                    break;
+                default:
+            }
+        }
+    }
+
+    private static Entry entry(Map<String, Entry> entries, String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            entry = new Entry(name);
+            entries.put(name, entry);
+        }
+        return entry;
+    }
+
+    public synchronized List<Entry> getSlowestMocks(int max) {
+        return slowest(mocks, max);
+    }
+
+    public synchronized List<Entry> getSlowestInjections(int max) {
+        return slowest(injections, max);
+    }
+
+    private static List<Entry> slowest(Map<String, Entry> entries, int max) {
+        List<Entry> sorted = new ArrayList<Entry>();
+        for (Entry entry : entries.values()) {
+            sorted.add(entry.copy());
+        }
+        Collections.sort(sorted, MOST_TIME_FIRST);
+        return sorted.size() > max ? sorted.subList(0, max) : sorted;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Timings over ").append(journals).append(" make() calls\n");
+        sb.append("Mocks created (total ms, count, max ms, type):\n");
+        for (Entry entry : slowest(mocks, Integer.MAX_VALUE)) {
+            sb.append(entry).append('\n');
+        }
+        sb.append("Injections (total ms, count, max ms, class injected into):\n");
+        for (Entry entry : slowest(injections, Integer.MAX_VALUE)) {
+            sb.append(entry).append('\n');
+        }
+        return sb.toString();
+    }
+
+    public static class Entry {
+        private final String name;
+        private int count;
+        private long totalNanos;
+        private long maxNanos;
+
+        private Entry(String name) {
+            this.name = name;
+        }
+
+        private void add(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        private Entry copy() {
+            Entry copy = new Entry(name);
+            copy.count = count;
+            copy.totalNanos = totalNanos;
+            copy.maxNanos = maxNanos;
+            return copy;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%10.3f %6d %10.3f  %s", totalNanos / 1000000.0, count, maxNanos / 1000000.0, name);
+        }
+    }
+
+}
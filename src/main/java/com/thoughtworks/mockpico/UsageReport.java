@@ -0,0 +1,339 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which of the mocks make() created were never called on or stubbed, per make() and per class made,
+ * and what they cost to create - time, and bytes allocated where the JVM can say. Shared by many
+ * tests, it shows which dependencies a controller could do without, or be split along. Nothing is
+ * tracked unless asked for:
+ *
+ * <pre>
+ * static UsageReport usage = new UsageReport();
+ *
+ * FooController fc = mockDepsFor(FooController.class).trackUsageIn(usage).make();
+ * // ... and after the suite
+ * System.out.println(usage);
+ * </pre>
+ *
+ * A mock counts as touched if it has been called or stubbed, including before a resetAll(..) or
+ * resetTouched(..), but not for stubbings a StubbingProfile replayed. Lazy placeholders count once
+ * materialized, and anything not a Mockito mock (a ProxyMocker proxy, say) always counts.
+ * <p>
+ * Mocks are not kept for the report. What it needs of one is looked at by the next make() on the
+ * report, when it is asked for, or when the mock is about to be reset, whichever is first; until then
+ * it is held only weakly.
+ */
+public class UsageReport {
+
+    private static final Object THREADS = ManagementFactory.getThreadMXBean();
+    private static final Method ALLOCATED_BYTES = allocatedBytesMethod();
+
+    private final List<Made> makes = new ArrayList<Made>();
+    // that may yet be touched
+    private final List<Dependency> pending = new ArrayList<Dependency>();
+
+    synchronized Made started(Class<?> type) {
+        for (Iterator<Dependency> dependencies = pending.iterator(); dependencies.hasNext(); ) {
+            if (dependencies.next().latch()) {
+                dependencies.remove();
+            }
+        }
+        Made made = new Made(this, type, makes.size() + 1);
+        makes.add(made);
+        return made;
+    }
+
+    private synchronized void pending(Dependency dependency) {
+        pending.add(dependency);
+    }
+
+    public synchronized List<Made> getMakes() {
+        return new ArrayList<Made>(makes);
+    }
+
+    public synchronized List<Dependency> getUntouched() {
+        List<Dependency> untouched = new ArrayList<Dependency>();
+        for (Made made : makes) {
+            untouched.addAll(made.getUntouched());
+        }
+        return untouched;
+    }
+
+    @Override
+    public synchronized String toString() {
+        int mocks = 0;
+        long nanos = 0;
+        long bytes = 0;
+        Map<String, Map<String, Entry>> byClass = new LinkedHashMap<String, Map<String, Entry>>();
+        for (Made made : makes) {
+            Map<String, Entry> entries = byClass.get(made.type.getName());
+            if (entries == null) {
+                entries = new LinkedHashMap<String, Entry>();
+                byClass.put(made.type.getName(), entries);
+            }
+            for (Dependency dependency : made.dependencies) {
+                mocks++;
+                Entry entry = entries.get(dependency.getName());
+                if (entry == null) {
+                    entry = new Entry(dependency.getName());
+                    entries.put(dependency.getName(), entry);
+                }
+                entry.made++;
+                if (!dependency.isTouched()) {
+                    entry.add(dependency);
+                    nanos += Math.max(0, dependency.nanos);
+                    bytes += Math.max(0, dependency.bytes);
+                }
+            }
+        }
+        List<Dependency> untouched = getUntouched();
+        StringBuilder sb = new StringBuilder();
+        sb.append("Mocks never touched: ").append(untouched.size()).append(" of ").append(mocks).append(" over ")
+                .append(makes.size()).append(" make() calls, costing ").append(String.format("%.3f", nanos / 1000000.0))
+                .append("ms and ").append(bytes / 1024).append("KB to make\n");
+        sb.append("By class made (never touched, of made, ms, KB, dependency):\n");
+        for (Map.Entry<String, Map<String, Entry>> entries : byClass.entrySet()) {
+            sb.append(entries.getKey()).append('\n');
+            for (Entry entry : entries.getValue().values()) {
+                if (entry.untouched > 0) {
+                    sb.append(entry).append('\n');
+                }
+            }
+        }
+        sb.append("By make():\n");
+        for (Made made : makes) {
+            if (!made.getUntouched().isEmpty()) {
+                sb.append(made).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Bytes allocated by the current thread so far, or -1 where the JVM won't say.
+     */
+    static long allocatedBytes() {
+        if (ALLOCATED_BYTES != null) {
+            try {
+                return (Long) ALLOCATED_BYTES.invoke(THREADS, Thread.currentThread().getId());
+            } catch (Exception e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    // com.sun.management.ThreadMXBean - HotSpot's, and not there on every JVM
+    private static Method allocatedBytesMethod() {
+        try {
+            Class<?> hotspot = Class.forName("com.sun.management.ThreadMXBean");
+            if (hotspot.isInstance(THREADS)) {
+                Method method = hotspot.getMethod("getThreadAllocatedBytes", long.class);
+                method.invoke(THREADS, Thread.currentThread().getId());
+                return method;
+            }
+        } catch (Exception e) {
+            // not HotSpot, or it has been turned off
+        }
+        return null;
+    }
+
+    public static class Made {
+        private final UsageReport report;
+        private final Class<?> type;
+        private final int number;
+        private final List<Dependency> dependencies = Collections.synchronizedList(new ArrayList<Dependency>());
+
+        private Made(UsageReport report, Class<?> type, int number) {
+            this.report = report;
+            this.type = type;
+            this.number = number;
+        }
+
+        Dependency mocked(Object key, Class<?> mockedType, Object mock, long nanos, long bytes) {
+            Object invocations = MockRegistry.invocationsOf(mock);
+            Dependency dependency = new Dependency(key, mockedType, invocations == null ? null
+                    : new WeakReference<Object>(mock), invocations, nanos, bytes);
+            // not a Mockito mock, or one whose invocations can't be seen
+            dependency.touched = invocations == null;
+            add(dependency);
+            return dependency;
+        }
+
+        /**
+         * For a lazy placeholder, which is touched once materialized().
+         */
+        Dependency placeheld(Object key, Class<?> mockedType) {
+            Dependency dependency = new Dependency(key, mockedType, null, null, -1, -1);
+            add(dependency);
+            return dependency;
+        }
+
+        private void add(Dependency dependency) {
+            dependencies.add(dependency);
+            if (!dependency.latch()) {
+                report.pending(dependency);
+            }
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        public List<Dependency> getDependencies() {
+            return new ArrayList<Dependency>(dependencies);
+        }
+
+        public List<Dependency> getUntouched() {
+            List<Dependency> untouched = new ArrayList<Dependency>();
+            for (Dependency dependency : getDependencies()) {
+                if (!dependency.isTouched()) {
+                    untouched.add(dependency);
+                }
+            }
+            return untouched;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("#").append(number).append(' ').append(type.getName()).append(':');
+            String separator = " ";
+            for (Dependency dependency : getUntouched()) {
+                sb.append(separator).append(dependency.getName());
+                separator = ", ";
+            }
+            return sb.toString();
+        }
+    }
+
+    public static class Dependency {
+        private final Object key;
+        private final Class<?> type;
+        private final Reference<Object> mock;
+        private final long nanos;
+        private final long bytes;
+        // the mock's, until it is known to be touched or has gone; they hold it once it has been called on
+        private Object invocations;
+        private boolean touched;
+
+        private Dependency(Object key, Class<?> type, Reference<Object> mock, Object invocations, long nanos,
+                           long bytes) {
+            this.key = key;
+            this.type = type;
+            this.mock = mock;
+            this.invocations = invocations;
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+
+        /**
+         * Remembers whether the mock has been touched, as it is about to be reset or may be about to go. True once
+         * that is settled for good, and nothing of the mock is held any more.
+         */
+        synchronized boolean latch() {
+            if (touched || invocations == null) {
+                return true;
+            }
+            Object current = mock.get();
+            if (current != null) {
+                // a reset gives the mock invocations of its own
+                invocations = MockRegistry.invocationsOf(current);
+            }
+            touched = invocations == null || MockRegistry.areTouched(invocations);
+            if (touched || current == null) {
+                invocations = null;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void materialized() {
+            touched = true;
+        }
+
+        public boolean isTouched() {
+            latch();
+            synchronized (this) {
+                return touched;
+            }
+        }
+
+        public String getName() {
+            return key instanceof Class ? ((Class<?>) key).getName() : key instanceof Type ? key.toString() : type.getName();
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        /**
+         * -1 for lazy placeholders, which are made when first called on.
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * -1 where the JVM won't say.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+    private static class Entry {
+        private final String name;
+        private int made;
+        private int untouched;
+        private long nanos;
+        private long bytes;
+
+        private Entry(String name) {
+            this.name = name;
+        }
+
+        private void add(Dependency dependency) {
+            untouched++;
+            nanos += Math.max(0, dependency.nanos);
+            bytes += Math.max(0, dependency.bytes);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%6d %6d %10.3f %8d  %s", untouched, made, nanos / 1000000.0, bytes / 1024, name);
+        }
+    }
+
+}
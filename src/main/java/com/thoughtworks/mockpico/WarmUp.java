@@ -0,0 +1,318 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import com.picocontainer.PicoCompositionException;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Mocks each dependency type of a set of classes once, ahead of the tests that need them, so the
+ * class generation and class loading Mockito does the first time it mocks a type is paid up front
+ * and in parallel. Dependency types are found the way make() finds them, from each class's
+ * InjectionPlan.
+ *
+ * <pre>
+ * WarmUp.Report report = WarmUp.forPackage("com.foo.controllers").run();
+ * Future&lt;WarmUp.Report&gt; later = WarmUp.forTypes(FooController.class, BarController.class).inBackground();
+ * </pre>
+ */
+public class WarmUp {
+
+    private static final ThreadFactory DAEMONS = new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "mockpico-warm-up");
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+
+    private final List<Class<?>> targets;
+    private Mockpico.Mocker mocker = new Mockpico.ClassMocker();
+    private DefaultValues defaultValues = DefaultValues.standard();
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private WarmUp(List<Class<?>> targets) {
+        this.targets = targets;
+    }
+
+    public static WarmUp forTypes(Class<?>... types) {
+        return new WarmUp(Arrays.asList(types));
+    }
+
+    /**
+     * Concrete classes in the package and its sub-packages, from directories and jars alike.
+     */
+    public static WarmUp forPackage(String packageName) {
+        return forPackage(packageName, Thread.currentThread().getContextClassLoader());
+    }
+
+    public static WarmUp forPackage(String packageName, ClassLoader loader) {
+        return new WarmUp(scan(packageName, loader));
+    }
+
+    /**
+     * The Mocker the tests will make with, so the same classes are generated.
+     */
+    public WarmUp withMocker(Mockpico.Mocker mocker) {
+        this.mocker = mocker;
+        return this;
+    }
+
+    /**
+     * The DefaultValues the tests will make with, so types they have a value for aren't mocked.
+     */
+    public WarmUp withDefaultValues(DefaultValues defaultValues) {
+        this.defaultValues = defaultValues;
+        return this;
+    }
+
+    public WarmUp withThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public Report run() {
+        long start = System.nanoTime();
+        Set<Class<?>> types = dependencyTypes();
+        List<Class<?>> prepared = new ArrayList<Class<?>>();
+        Map<Class<?>, Throwable> failed = new LinkedHashMap<Class<?>, Throwable>();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, types.size())), DAEMONS);
+        try {
+            Map<Class<?>, Future<Throwable>> mocking = new LinkedHashMap<Class<?>, Future<Throwable>>();
+            for (final Class<?> type : types) {
+                mocking.put(type, pool.submit(new Callable<Throwable>() {
+                    public Throwable call() {
+                        try {
+                            mocker.mock(type);
+                            return null;
+                        } catch (Throwable t) {
+                            // final classes and the like - make() will fail on them too
+                            return t;
+                        }
+                    }
+                }));
+            }
+            for (Map.Entry<Class<?>, Future<Throwable>> entry : mocking.entrySet()) {
+                Throwable failure;
+                try {
+                    failure = entry.getValue().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException e) {
+                    failure = e.getCause();
+                }
+                if (failure == null) {
+                    prepared.add(entry.getKey());
+                } else {
+                    failed.put(entry.getKey(), failure);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Report(targets.size(), prepared, failed, System.nanoTime() - start);
+    }
+
+    /**
+     * Runs on a daemon thread, so a suite can start while the warm-up carries on.
+     */
+    public Future<Report> inBackground() {
+        ExecutorService coordinator = Executors.newSingleThreadExecutor(DAEMONS);
+        try {
+            return coordinator.submit(new Callable<Report>() {
+                public Report call() {
+                    return run();
+                }
+            });
+        } finally {
+            coordinator.shutdown();
+        }
+    }
+
+    private Set<Class<?>> dependencyTypes() {
+        Set<Class<?>> types = new LinkedHashSet<Class<?>>();
+        for (Class<?> target : targets) {
+            InjectionPlan plan = InjectionPlan.forType(target);
+            if (plan.getConstructor() != null) {
+                addMockable(types, plan.getConstructorParameterTypes());
+            } else {
+                // PicoContainer will choose among them, so any could be used
+                for (Constructor<?> constructor : target.getConstructors()) {
+                    addMockable(types, constructor.getGenericParameterTypes());
+                }
+            }
+            addMockable(types, plan.getFieldTypes());
+            for (Type[] parameterTypes : plan.getMethodParameterTypes()) {
+                addMockable(types, parameterTypes);
+            }
+        }
+        return types;
+    }
+
+    private void addMockable(Set<Class<?>> types, Type[] dependencies) {
+        for (Type dependency : dependencies) {
+            Class<?> raw = null;
+            if (dependency instanceof ParameterizedType) {
+                raw = (Class<?>) ((ParameterizedType) dependency).getRawType();
+            } else if (dependency instanceof Class) {
+                raw = (Class<?>) dependency;
+            }
+            if (raw != null && !raw.isPrimitive() && defaultValues.providerFor(raw) == null) {
+                types.add(raw);
+            }
+        }
+    }
+
+    static List<Class<?>> scan(String packageName, ClassLoader loader) {
+        String path = packageName.replace('.', '/');
+        List<Class<?>> classes = new ArrayList<Class<?>>();
+        try {
+            Enumeration<URL> roots = loader.getResources(path);
+            while (roots.hasMoreElements()) {
+                URL root = roots.nextElement();
+                if ("file".equals(root.getProtocol())) {
+                    scanDirectory(new File(root.toURI()), packageName, loader, classes);
+                } else if ("jar".equals(root.getProtocol())) {
+                    JarFile jar = ((JarURLConnection) root.openConnection()).getJarFile();
+                    for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements(); ) {
+                        String name = entries.nextElement().getName();
+                        if (name.startsWith(path + "/") && name.endsWith(".class")) {
+                            addClass(name.substring(0, name.length() - ".class".length()).replace('/', '.'), loader, classes);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new PicoCompositionException("Package " + packageName + " could not be scanned", e);
+        } catch (URISyntaxException e) {
+            throw new PicoCompositionException("Package " + packageName + " could not be scanned", e);
+        }
+        return classes;
+    }
+
+    private static void scanDirectory(File dir, String packageName, ClassLoader loader, List<Class<?>> classes) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                scanDirectory(file, packageName + "." + file.getName(), loader, classes);
+            } else if (file.getName().endsWith(".class")) {
+                String name = file.getName();
+                addClass(packageName + "." + name.substring(0, name.length() - ".class".length()), loader, classes);
+            }
+        }
+    }
+
+    private static void addClass(String className, ClassLoader loader, List<Class<?>> classes) {
+        Class<?> type;
+        try {
+            // not initialized - static blocks of classes we only look at shouldn't run
+            type = Class.forName(className, false, loader);
+        } catch (ClassNotFoundException e) {
+            return;
+        } catch (LinkageError e) {
+            // an optional dependency of the class is missing
+            return;
+        }
+        int modifiers = type.getModifiers();
+        if (!type.isInterface() && !type.isAnnotation() && !type.isEnum() && !Modifier.isAbstract(modifiers)
+                && !type.isAnonymousClass() && !type.isLocalClass()
+                && (type.getEnclosingClass() == null || Modifier.isStatic(modifiers))) {
+            classes.add(type);
+        }
+    }
+
+    public static class Report {
+
+        private final int targets;
+        private final List<Class<?>> prepared;
+        private final Map<Class<?>, Throwable> failed;
+        private final long nanos;
+
+        private Report(int targets, List<Class<?>> prepared, Map<Class<?>, Throwable> failed, long nanos) {
+            this.targets = targets;
+            this.prepared = Collections.unmodifiableList(prepared);
+            this.failed = Collections.unmodifiableMap(failed);
+            this.nanos = nanos;
+        }
+
+        public int getTargets() {
+            return targets;
+        }
+
+        public List<Class<?>> getPrepared() {
+            return prepared;
+        }
+
+        /**
+         * Types the Mocker threw on, with what it threw.
+         */
+        public Map<Class<?>, Throwable> getFailed() {
+            return failed;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public long getMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+
+        @Override
+        public String toString() {
+            return "Warmed up " + prepared.size() + " mock classes for " + targets + " types in " + getMillis() + "ms"
+                    + (failed.isEmpty() ? "" : " (" + failed.size() + " could not be mocked: " + failed.keySet() + ")");
+        }
+    }
+
+}
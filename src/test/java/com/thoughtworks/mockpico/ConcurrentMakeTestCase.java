@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import com.picocontainer.MutablePicoContainer;
+import com.thoughtworks.mockpico.MockpicoTestCase.A;
+import com.thoughtworks.mockpico.MockpicoTestCase.B;
+import com.thoughtworks.mockpico.MockpicoTestCase.C;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.thoughtworks.mockpico.Mockpico.makePicoContainer;
+import static com.thoughtworks.mockpico.Mockpico.mockDepsFor;
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+public class ConcurrentMakeTestCase {
+
+    private static final int THREADS = 16;
+    private static final int MAKES = 4000;
+
+    @Test
+    public void manyThreadsCanMakeAtOnceAndEachGetsItsOwnGraphAndJournal() throws Exception {
+        final String[] expected = makeOne(true);
+        final String[] expectedWithMocks = makeOne(false);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<String[]>> results = new ArrayList<Future<String[]>>();
+        for (int i = 0; i < MAKES; i++) {
+            final boolean withInjectees = i % 2 == 0;
+            results.add(executor.submit(new Callable<String[]>() {
+                public String[] call() {
+                    return makeOne(withInjectees);
+                }
+            }));
+        }
+        for (int i = 0; i < MAKES; i++) {
+            String[] made = results.get(i).get();
+            String[] wanted = i % 2 == 0 ? expected : expectedWithMocks;
+            assertEquals(wanted[0], made[0]);
+            assertEquals(wanted[1], made[1]);
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void makesIntoOneSharedContainerNeitherDuplicateNorLoseMocks() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 200; round++) {
+                final MutablePicoContainer mocks = makePicoContainer();
+                final CountDownLatch start = new CountDownLatch(1);
+                List<Future<Object>> made = new ArrayList<Future<Object>>();
+                for (final Class<?> type : new Class<?>[] {Till0.class, Till1.class, Till2.class, Till3.class}) {
+                    made.add(executor.submit(new Callable<Object>() {
+                        public Object call() throws InterruptedException {
+                            start.await();
+                            return mockDepsFor(type).using(mocks).make();
+                        }
+                    }));
+                }
+                start.countDown();
+                Ledger ledger = ((Till) made.get(0).get()).ledger;
+                for (Future<Object> till : made) {
+                    assertSame(ledger, ((Till) till.get()).ledger);
+                    assertNotNull(((Till) till.get()).own);
+                }
+                // the one Ledger, and a mock of its own for each till
+                assertEquals(5, MockRegistry.mocksIn(mocks).size());
+                assertSame(ledger, mocks.getComponent(Ledger.class));
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static String[] makeOne(boolean withInjectees) {
+        Journal journal = new Journal();
+        A a;
+        if (withInjectees) {
+            C c = new C();
+            a = mockDepsFor(A.class).withInjectees(new B(c), c).journalTo(journal).make();
+        } else {
+            a = mockDepsFor(A.class).journalTo(journal).make();
+        }
+        return new String[] {a.toString(), withoutHashCodes(journal)};
+    }
+
+    private static String withoutHashCodes(Journal journal) {
+        return journal.toString().replaceAll("hashCode: \\d+", "hashCode: <HC>").replaceAll("@[0-9a-f]+", "@<HC>");
+    }
+
+    public interface Ledger {
+    }
+
+    public interface Own0 {
+    }
+
+    public interface Own1 {
+    }
+
+    public interface Own2 {
+    }
+
+    public interface Own3 {
+    }
+
+    public abstract static class Till {
+        final Ledger ledger;
+        final Object own;
+
+        protected Till(Ledger ledger, Object own) {
+            this.ledger = ledger;
+            this.own = own;
+        }
+    }
+
+    public static class Till0 extends Till {
+        public Till0(Ledger ledger, Own0 own) {
+            super(ledger, own);
+        }
+    }
+
+    public static class Till1 extends Till {
+        public Till1(Ledger ledger, Own1 own) {
+            super(ledger, own);
+        }
+    }
+
+    public static class Till2 extends Till {
+        public Till2(Ledger ledger, Own2 own) {
+            super(ledger, own);
+        }
+    }
+
+    public static class Till3 extends Till {
+        public Till3(Ledger ledger, Own3 own) {
+            super(ledger, own);
+        }
+    }
+
+}
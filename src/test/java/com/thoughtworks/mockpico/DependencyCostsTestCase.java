@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import org.junit.Test;
+
+import javax.inject.Inject;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DependencyCostsTestCase {
+
+    @Test
+    public void injectionPointsFanOutAndMockedAreCountedPerClass() {
+        DependencyCosts.Cost wide = DependencyCosts.forTypes(Wide.class).run().getCosts().get(0);
+
+        assertSame(Wide.class, wide.getType());
+        assertEquals(7, wide.getInjectionPoints());
+        assertEquals(6, wide.getFanOut());
+        assertEquals(4, wide.getMocked());
+    }
+
+    @Test
+    public void dependenciesInjecteesSatisfyAreNotCountedAsMocked() {
+        DependencyCosts.Cost wide = DependencyCosts.forTypes(Wide.class).withInjectees(new RealB()).run().getCosts().get(0);
+
+        assertEquals(6, wide.getFanOut());
+        assertEquals(3, wide.getMocked());
+    }
+
+    @Test
+    public void whatAMakeCostsIsMeasured() {
+        DependencyCosts.Cost wide = DependencyCosts.forTypes(Wide.class).withMakes(3).run().getCosts().get(0);
+
+        assertNull(wide.getFailure());
+        assertEquals(4, wide.getMocksCreated());
+        assertTrue(wide.getColdNanos() > 0);
+        assertTrue(wide.getNanos() > 0);
+    }
+
+    @Test
+    public void sortingPutsTheWorstFirst() {
+        DependencyCosts.Report report = DependencyCosts.forTypes(Narrow.class, Wide.class).run();
+
+        assertSame(Narrow.class, report.getCosts().get(0).getType());
+        assertSame(Wide.class, report.sortedBy(DependencyCosts.Order.MOCKED).getCosts().get(0).getType());
+        assertSame(Wide.class, report.sortedBy(DependencyCosts.Order.FAN_OUT).getCosts().get(0).getType());
+    }
+
+    @Test
+    public void aClassThatCannotBeMadeIsReportedRatherThanThrown() {
+        DependencyCosts.Cost broken = DependencyCosts.forTypes(Broken.class).run().getCosts().get(0);
+
+        assertNotNull(broken.getFailure());
+        assertEquals(1, broken.getFanOut());
+        assertEquals(-1, broken.getNanos());
+        assertEquals(-1, broken.getMocksCreated());
+    }
+
+    @Test
+    public void reportIsWrittenAsCsvOrJson() {
+        DependencyCosts.Report report = DependencyCosts.forTypes(Narrow.class, Broken.class).run();
+
+        String[] csv = report.toCsv().split("\n");
+        assertEquals(3, csv.length);
+        assertEquals("type,injectionPoints,fanOut,mocked,mocksCreated,coldNanos,nanos,bytes,failure", csv[0]);
+        assertTrue(csv[1], csv[1].startsWith(Narrow.class.getName() + ",1,1,1,1,"));
+        assertTrue(csv[1], csv[1].endsWith(","));
+        assertTrue(csv[2], csv[2].startsWith(Broken.class.getName() + ",1,1,1,-1,-1,-1,-1,\""));
+
+        String json = report.toJson();
+        assertTrue(json, json.startsWith("[\n  {\"type\": \"" + Narrow.class.getName()
+                + "\", \"injectionPoints\": 1, \"fanOut\": 1, \"mocked\": 1, \"mocksCreated\": 1, \"coldNanos\": "));
+        assertTrue(json, json.endsWith("}\n]\n"));
+    }
+
+    public interface A {
+    }
+
+    public interface B {
+    }
+
+    public interface C {
+    }
+
+    public interface D {
+    }
+
+    public static class RealB implements B {
+    }
+
+    public static class Narrow {
+        public Narrow(A a) {
+        }
+    }
+
+    public static class Wide {
+        @Inject
+        private C c;
+
+        public Wide(A a, B b, Integer count, String name) {
+        }
+
+        @Inject
+        public void setD(D d, A a) {
+        }
+    }
+
+    public static class Broken {
+        public Broken(A a) {
+            throw new IllegalStateException("broken");
+        }
+    }
+
+}
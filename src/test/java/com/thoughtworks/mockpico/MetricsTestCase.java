@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.thoughtworks.mockpico.Mockpico.mockDepsFor;
+import static com.thoughtworks.mockpico.Mockpico.resetAll;
+import static com.thoughtworks.mockpico.Mockpico.verifyNoMoreInteractionsForAll;
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTestCase {
+
+    private Metrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = Metrics.enable();
+        metrics.reset();
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.disable();
+    }
+
+    @Test
+    public void makesMocksAndInjecteesAreCounted() {
+        mockDepsFor(MockpicoTestCase.NeedsList.class).make();
+        Mockpico.JournalOrMakeNext<MockpicoTestCase.B> b = mockDepsFor(MockpicoTestCase.B.class)
+                .withInjectees(new MockpicoTestCase.C());
+        b.make();
+
+        assertEquals(2, metrics.getMakes());
+        assertEquals(1, metrics.getMocksCreated());
+        assertEquals(1, metrics.getMocksCreated(List.class));
+        assertEquals(1, metrics.getInjecteesUsed());
+        assertTrue(metrics.getMakeNanos() > 0);
+        assertTrue(metrics.getMakeNanosP50() <= metrics.getMakeNanosMax());
+        assertEquals(Arrays.asList("java.util.List=1"), Arrays.asList(metrics.getMocksByType()));
+    }
+
+    @Test
+    public void resetAndVerifyAreTimed() {
+        Mockpico.Made made = Mockpico.mockDepsForAll(MockpicoTestCase.NeedsList.class).make();
+
+        verifyNoMoreInteractionsForAll(made.getMocks());
+        resetAll(made.getMocks());
+
+        assertEquals(1, metrics.getVerifyHistogram().getCount());
+        assertEquals(1, metrics.getResetHistogram().getCount());
+    }
+
+    @Test
+    public void nothingIsRecordedWhenDisabled() {
+        Metrics.disable();
+        assertNull(Metrics.current());
+
+        mockDepsFor(MockpicoTestCase.NeedsList.class).make();
+
+        assertEquals(0, metrics.getMakes());
+        assertEquals(0, metrics.getMocksCreated());
+    }
+
+    @Test
+    public void registeredWithJmx() throws Exception {
+        mockDepsFor(MockpicoTestCase.NeedsList.class).make();
+
+        Object makes = ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName(Metrics.OBJECT_NAME), "Makes");
+
+        assertEquals(1L, makes);
+    }
+
+    @Test
+    public void histogramPercentilesAreWithinAFactorOfTwo() {
+        Metrics.Histogram histogram = new Metrics.Histogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050000, histogram.getTotal());
+        assertEquals(100000, histogram.getMax());
+        assertTrue(histogram.percentile(50) >= 50000 && histogram.percentile(50) < 100000);
+        assertEquals(100000, histogram.percentile(100));
+    }
+
+    @Test
+    public void canBeWrittenAsJsonOrCsv() throws IOException {
+        mockDepsFor(MockpicoTestCase.NeedsList.class).make();
+        File csv = File.createTempFile("mockpico-metrics", ".csv");
+        csv.deleteOnExit();
+
+        metrics.writeTo(csv);
+
+        BufferedReader reader = new BufferedReader(new FileReader(csv));
+        try {
+            assertEquals("name,count,totalNanos,p50Nanos,p99Nanos,maxNanos", reader.readLine());
+            assertTrue(reader.readLine().startsWith("make,1,"));
+        } finally {
+            reader.close();
+        }
+        assertTrue(metrics.toJson().contains("\"java.util.List\": 1"));
+    }
+
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.mock.MockCreationSettings;
+import org.mockito.stubbing.Answer;
+
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MockFactoryTestCase {
+
+    @Test
+    public void oneFactoryPerTypeMakesDistinctMocks() {
+        MockFactory<List> factory = MockFactory.forType(List.class);
+        assertSame(factory, MockFactory.forType(List.class));
+
+        List first = factory.mock();
+        List second = factory.mock();
+
+        assertNotSame(first, second);
+        assertSame(first.getClass(), second.getClass());
+        assertTrue(Mockito.mockingDetails(second).isMock());
+    }
+
+    @Test
+    public void mocksFromTheGeneratedClassStubVerifyAndResetAsAnyOther() {
+        MockFactory.forType(Shop.class).mock();
+        Shop first = MockFactory.forType(Shop.class).mock();
+        Shop second = MockFactory.forType(Shop.class).mock();
+
+        when(first.basket()).thenReturn(null);
+        second.basket().size();
+        verify(second).basket();
+        assertEquals(0, second.basket().size());
+        assertSame(null, first.basket());
+
+        Mockito.reset(second);
+        Mockito.verifyZeroInteractions(second);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void mocksAreMadeByMockitoItselfWhenItsInternalsFail() {
+        // settings Mockito's internals can't make a mock from
+        MockCreationSettings<Shop> settings = Mockito.mock(MockCreationSettings.class);
+        when(settings.getTypeToMock()).thenReturn(Shop.class);
+        when(settings.getDefaultAnswer()).thenReturn((Answer) Mockito.RETURNS_DEEP_STUBS);
+        when(settings.getInvocationListeners()).thenThrow(new IllegalStateException("internals changed"));
+        MockFactory<Shop> factory = MockFactory.forSettings(settings);
+
+        Shop first = factory.mock();
+        Shop second = factory.mock();
+
+        assertNotSame(first, second);
+        assertTrue(Mockito.mockingDetails(first).isMock());
+        assertEquals(0, first.basket().size());
+        verify(first).basket();
+        // the internals are not tried again for the second
+        verify(settings, times(1)).getInvocationListeners();
+    }
+
+    public interface Shop {
+        Basket basket();
+    }
+
+    public interface Basket {
+        int size();
+    }
+
+}
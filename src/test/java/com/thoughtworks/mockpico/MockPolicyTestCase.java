@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import org.junit.Test;
+import org.mockito.internal.util.MockUtil;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MockPolicyTestCase {
+
+    @Test
+    public void stubOnlyMocksKeepNoHistoryButCanStillBeStubbed() {
+        Branch branch = MockPolicy.stubOnly().mock(Branch.class);
+        for (int i = 0; i < 100; i++) {
+            branch.name();
+        }
+        // just the latest, which when(..) stubs
+        assertEquals(1, invocationsOf(branch));
+        assertTrue(MockPolicy.isStubOnly(branch));
+
+        when(branch.name()).thenReturn("stubbed");
+        assertEquals("stubbed", branch.name());
+        assertEquals("stubbed", branch.name());
+    }
+
+    @Test
+    public void typesTheTestWillVerifyCanKeepRecording() {
+        MockPolicy policy = MockPolicy.stubOnly().butRecording(Branch.class);
+
+        Branch branch = policy.mock(Branch.class);
+        branch.name();
+        branch.name();
+        verify(branch, org.mockito.Mockito.times(2)).name();
+        assertFalse(MockPolicy.isStubOnly(branch));
+        assertTrue(MockPolicy.isStubOnly(policy.mock(Leaf.class)));
+    }
+
+    @Test
+    public void patternsMatchFullyQualifiedNames() {
+        MockPolicy policy = MockPolicy.recording().butStubOnly("com.thoughtworks.*$Lea*");
+
+        assertTrue(MockPolicy.isStubOnly(policy.mock(Leaf.class)));
+        assertFalse(MockPolicy.isStubOnly(policy.mock(Branch.class)));
+    }
+
+    @Test
+    public void deepStubsCanBeLimitedOrTurnedOff() {
+        assertNull(MockPolicy.recording().withDeepStubs(0).mock(Tree.class).branch());
+
+        Tree oneDeep = MockPolicy.stubOnly().withDeepStubs(1).mock(Tree.class);
+        assertNotNull(oneDeep.branch());
+        assertNull(oneDeep.branch().leaf());
+        assertTrue(oneDeep.branch() == oneDeep.branch());
+        assertTrue(MockPolicy.isStubOnly(oneDeep.branch()));
+
+        Tree twoDeep = MockPolicy.recording().withDeepStubs(2, Tree.class).mock(Tree.class);
+        assertNotNull(twoDeep.branch().leaf());
+    }
+
+    private static int invocationsOf(Object mock) {
+        return new MockUtil().getMockHandler(mock).getInvocationContainer().getInvocations().size();
+    }
+
+    public interface Tree {
+        Branch branch();
+    }
+
+    public interface Branch {
+        Leaf leaf();
+
+        String name();
+    }
+
+    public interface Leaf {
+        String name();
+    }
+
+}
@@ -0,0 +1,218 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.mockito.exceptions.verification.NoInteractionsWanted;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+
+public class MockpicoRuleTestCase {
+
+    @Test
+    public void statelessObjectIsMadeOnceAndTouchedMocksAreResetBetweenTests() {
+        Result result = JUnitCore.runClasses(Reusing.class);
+
+        assertTrue(result.getFailures().toString(), result.wasSuccessful());
+        assertEquals(1, Reusing.shared.getBuilds());
+        assertEquals(1, Reusing.shared.getReuses());
+        assertEquals(2, Reusing.seen.size());
+        assertSame(Reusing.seen.get(0), Reusing.seen.get(1));
+    }
+
+    @Test
+    public void objectHoldingStateIsMadeForEachTest() {
+        Result result = JUnitCore.runClasses(Rebuilding.class);
+
+        assertTrue(result.getFailures().toString(), result.wasSuccessful());
+        assertEquals(2, Rebuilding.shared.getBuilds());
+        assertEquals(0, Rebuilding.shared.getReuses());
+    }
+
+    @Test
+    public void unverifiedInteractionsFailTheTestWhenAsked() {
+        Result result = JUnitCore.runClasses(Verifying.class);
+
+        assertEquals(1, result.getFailureCount());
+        assertTrue(result.getFailures().get(0).getException() instanceof NoInteractionsWanted);
+    }
+
+    @Test
+    public void fieldsSetOnlyByInjectionOrHoldingDependenciesAreNotState() {
+        assertEquals(false, MockpicoRule.holdsState(new Stateless(null),
+                Mockpico.mockDepsForAll(Stateless.class).make().getMocks()));
+        Mockpico.Made made = Mockpico.mockDepsForAll(Stateful.class).make();
+        assertEquals(true, MockpicoRule.holdsState(made.get(Stateful.class), made.getMocks()));
+    }
+
+    @Test
+    public void fieldsATestAssignsAreStateOnlyOnceAssigned() {
+        Mockpico.Made made = Mockpico.mockDepsForAll(Counting.class).make();
+        Counting counting = made.get(Counting.class);
+        assertEquals(false, MockpicoRule.holdsState(counting, made.getMocks()));
+
+        MockpicoRule.Snapshot snapshot = MockpicoRule.Snapshot.of(counting);
+        assertEquals(false, snapshot.changedIn(counting));
+        counting.count();
+        assertEquals(true, snapshot.changedIn(counting));
+    }
+
+    @Test
+    public void objectWhoseFieldsATestAssignedIsMadeAgainForTheNextTest() {
+        Result result = JUnitCore.runClasses(Recounting.class);
+
+        assertTrue(result.getFailures().toString(), result.wasSuccessful());
+        assertEquals(2, Recounting.shared.getBuilds());
+        assertEquals(0, Recounting.shared.getReuses());
+    }
+
+    public static class Counting {
+        private List list;
+        private int count;
+
+        public Counting(List list) {
+            this.list = list;
+        }
+
+        public void count() {
+            list.add("x");
+            count++;
+        }
+    }
+
+    public static class Recounting {
+        @ClassRule
+        public static MockpicoRule<Counting> shared = MockpicoRule.forType(Counting.class);
+        @Rule
+        public MockpicoRule<Counting> rule = shared;
+
+        @Test
+        public void one() {
+            rule.get().count();
+            assertEquals(1, rule.get().count);
+        }
+
+        @Test
+        public void two() {
+            rule.get().count();
+            assertEquals(1, rule.get().count);
+        }
+    }
+
+    public static class Stateless {
+        private final List list;
+
+        public Stateless(List list) {
+            this.list = list;
+        }
+
+        public void add() {
+            list.add("x");
+        }
+    }
+
+    public static class Stateful {
+        private final List list;
+        private final List<String> added = new ArrayList<String>();
+
+        public Stateful(List list) {
+            this.list = list;
+        }
+
+        public void add() {
+            list.add("x");
+            added.add("x");
+        }
+    }
+
+    public static class Reusing {
+        @ClassRule
+        public static MockpicoRule<Stateless> shared = MockpicoRule.forType(Stateless.class);
+        @Rule
+        public MockpicoRule<Stateless> rule = shared;
+
+        static List<Object> seen = new ArrayList<Object>();
+
+        @Test
+        public void one() {
+            exercise();
+        }
+
+        @Test
+        public void two() {
+            exercise();
+        }
+
+        private void exercise() {
+            seen.add(rule.get());
+            rule.get().add();
+            // would be two calls were the mock not reset after the other test
+            verify(rule.mock(List.class)).add("x");
+        }
+    }
+
+    public static class Rebuilding {
+        @ClassRule
+        public static MockpicoRule<Stateful> shared = MockpicoRule.forType(Stateful.class);
+        @Rule
+        public MockpicoRule<Stateful> rule = shared;
+
+        @Test
+        public void one() {
+            rule.get().add();
+        }
+
+        @Test
+        public void two() {
+            rule.get().add();
+        }
+    }
+
+    public static class Verifying {
+        @ClassRule
+        public static MockpicoRule<Stateless> shared = MockpicoRule.forType(Stateless.class).verifyingNoMoreInteractions();
+        @Rule
+        public MockpicoRule<Stateless> rule = shared;
+
+        @Test
+        public void verified() {
+            rule.get().add();
+            verify(rule.mock(List.class)).add("x");
+        }
+
+        @Test
+        public void unverified() {
+            rule.get().add();
+        }
+    }
+
+}
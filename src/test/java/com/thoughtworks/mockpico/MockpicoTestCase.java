@@ -21,7 +21,9 @@ package com.thoughtworks.mockpico;
  * THE SOFTWARE.
  */
 
+import com.picocontainer.InjectionType;
 import com.picocontainer.MutablePicoContainer;
+import com.picocontainer.PicoCompositionException;
 import com.picocontainer.injectors.AnnotatedFieldInjection;
 import com.picocontainer.injectors.AnnotatedMethodInjection;
 import com.picocontainer.injectors.NamedMethodInjection;
@@ -32,15 +34,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.inject.Inject;
 import java.lang.annotation.Annotation;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -53,8 +62,11 @@ import static com.thoughtworks.mockpico.Mockpico.resetAll;
 import static junit.framework.Assert.assertEquals;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
 public class MockpicoTestCase {
@@ -190,6 +202,50 @@ public class MockpicoTestCase {
                 "Field being injected: 'b2' with: Mock for B, hashCode: <HC#1>\n", journalString);
     }
 
+    @Test
+    public void cachedInjectionTypesJournalTheSameAsPicosOwn() {
+        Journal journal = new Journal();
+        A a = mockDepsFor(A.class)
+                .withInjectionTypes(CDI(), SDI(), new CachedFieldInjection(Inject.class, Mockpico.JSR330_ATINJECT, Mockpico.SPRING_AUTOWIRED))
+                .journalTo(journal)
+                .make();
+
+        assertTheseHappenedInOrder(
+                aMadeWith(mockCandB()),
+                setterCalledWith(mockD()),
+                autowiredFieldSetTo(mockB()),
+                atInjectFieldSetTo(mockB())
+        ).to(a);
+
+        assertEquals("Constructor being injected:\n" +
+                "  arg[0] type:class com.thoughtworks.mockpico.MockpicoTestCase$C, with: Mock for C, hashCode: <HC#0>\n" +
+                "  arg[1] type:class com.thoughtworks.mockpico.MockpicoTestCase$B, with: Mock for B, hashCode: <HC#1>\n" +
+                "Method 'setIt' being injected: \n" +
+                "  arg[0] type:class com.thoughtworks.mockpico.MockpicoTestCase$D, with: Mock for D, hashCode: <HC#2>\n" +
+                "Field being injected: 'b1' with: Mock for B, hashCode: <HC#1>\n" +
+                "Field being injected: 'b2' with: Mock for B, hashCode: <HC#1>\n",
+                replaceNumbericObjectIDsSoThatStringComparisonCanWork(journal));
+        for (Journal.Event event : journal.getEvents()) {
+            if (event.getKind() == Journal.Kind.FIELD) {
+                assertThat(event.getNanos() >= 0, is(true));
+            }
+        }
+    }
+
+    @Test
+    public void cachedMethodInjectionDefaultsToMockpicosAnnotations() {
+        A a = mockDepsFor(A.class)
+                .withInjectionTypes(CDI(), new CachedMethodInjection())
+                .withInjectees(b, c)
+                .make();
+
+        assertTheseHappenedInOrder(
+                aMadeWith(memberVarsCandB()),
+                atInjectMethodCalledWith(memberVarB()),
+                autowiredMethodCalledWith(memberVarB())
+        ).to(a);
+    }
+
     @Test
     public void defaultsAreConstructorAnnotatedFieldAndMethodInjectionAndMockitoSuppliesInjectees() {
 
@@ -246,7 +302,7 @@ public class MockpicoTestCase {
                 "  arg[5] type:float, with: 0.0\n" +
                 "  arg[6] type:byte, with: 0\n" +
                 "  arg[7] type:short, with: 0\n" +
-                "  arg[8] type:class java.math.BigInteger, with: Mock for BigInteger, hashCode: <HC#3>\n" +
+                "  arg[8] type:class java.math.BigInteger, with: 0\n" +
                 "  arg[9] type:char, with: \u0000\n" +
                 "  arg[10] type:class java.lang.Long, with: 0\n"));
     }
@@ -318,12 +374,542 @@ public class MockpicoTestCase {
         Mockito.verifyNoMoreInteractions(mocks.getComponent(List.class));
     }
 
+    @Test
+    public void mocksAddedToTheContainerByTheTestAreAlsoResetAndVerified() {
+        MutablePicoContainer mocks = makePicoContainer();
+        List list = mock(List.class);
+        mocks.addComponent(List.class, list);
+
+        NeedsList nl = mockDepsFor(NeedsList.class)
+                .using(mocks)
+                .make();
+
+        nl.oops();
+        try {
+            Mockpico.verifyNoMoreInteractionsForAll(mocks);
+            fail("should have barfed");
+        } catch (NoInteractionsWanted e) {
+            // expected
+        }
+        resetAll(mocks);
+        Mockito.verifyNoMoreInteractions(list);
+    }
+
+    @Test
+    public void mockInjecteesCanAlsoReceiveVerifyNoMoreInteractions() {
+        MutablePicoContainer mocks = makePicoContainer();
+        List list1 = mock(List.class);
+
+        NeedsList nl = mockDepsFor(NeedsList.class)
+                .using(mocks)
+                .withInjectees(list1, new StringBuilder())
+                .make();
+
+        nl.oops();
+        try {
+            Mockpico.verifyNoMoreInteractionsForAll(mocks);
+            fail("should have barfed");
+        } catch (NoInteractionsWanted e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void lazyMocksAreOnlyMadeWhenFirstUsed() {
+        Journal journal = new Journal();
+
+        NeedsList nl = mockDepsFor(NeedsList.class)
+                .journalTo(journal)
+                .withLazyMocks()
+                .make();
+
+        assertThat(journal.toString().indexOf("Mock materialized"), is(-1));
+        nl.oops();
+        assertThat(journal.toString().indexOf("Mock materialized for: interface java.util.List"), not(-1));
+        Mockito.verify(Mockpico.mockOf(nl.list)).add("oops");
+    }
+
+    @Test
+    public void lazyMocksCanBeStubbedThroughThePlaceholder() {
+        NeedsList nl = mockDepsFor(NeedsList.class)
+                .withLazyMocks()
+                .make();
+
+        Mockito.when(nl.list.size()).thenReturn(3);
+
+        assertThat(nl.list.size(), is(3));
+    }
+
+    @Test
+    public void journalEventsCanBeWalkedWithoutParsingText() {
+        Journal journal = new Journal();
+
+        NeedsList nl = mockDepsFor(NeedsList.class)
+                .journalTo(journal)
+                .make();
+
+        List<Journal.Event> events = journal.getEvents();
+        assertThat(events.size(), is(3));
+        assertThat(events.get(0).getKind(), is(Journal.Kind.MOCKED));
+        assertThat(events.get(1).getKind(), is(Journal.Kind.CONSTRUCTOR));
+        assertThat(events.get(2).getKind(), is(Journal.Kind.ARGUMENT));
+        assertThat(events.get(2).getIndex(), is(0));
+        assertSame(List.class, events.get(2).getType());
+        assertSame(nl.list, events.get(2).getValue());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void thingsAppendedToTheJournalAreRenderedAsTheyAre() {
+        Journal journal = new Journal();
+
+        journal.append((Object) "before make\n");
+        mockDepsFor(NeedsList.class)
+                .journalTo(journal)
+                .make();
+
+        assertThat(journal.getEvents().get(0).getKind(), is(Journal.Kind.OTHER));
+        assertThat(journal.toString().startsWith("before make\nConstructor being injected:\n"), is(true));
+        assertThat(journal.getSlowest(10).size(), is(2));
+    }
+
+    @Test
+    public void mockCreationIsTimedButNotListedInJournalText() {
+        Journal journal = new Journal();
+
+        mockDepsFor(NeedsList.class)
+                .journalTo(journal)
+                .make();
+
+        List<Journal.Event> slowest = journal.getSlowest(10);
+        assertThat(slowest.size(), is(2));
+        Journal.Event mocked = slowest.get(0).getKind() == Journal.Kind.MOCKED ? slowest.get(0) : slowest.get(1);
+        assertSame(List.class, mocked.getType());
+        assertThat(mocked.getNanos() >= 0, is(true));
+        assertThat(journal.toString().indexOf("Mock created"), is(-1));
+
+        TimingReport report = new TimingReport();
+        report.add(journal);
+        report.add(journal);
+        assertThat(report.getSlowestMocks(1).get(0).getName(), equalTo("java.util.List"));
+        assertThat(report.getSlowestMocks(1).get(0).getCount(), is(2));
+    }
+
+    @Test
+    public void injectionsAreTimedToTheNanosecond() {
+        Journal journal = new Journal();
+
+        mockDepsFor(NeedsList.class)
+                .journalTo(journal)
+                .make();
+
+        Journal.Event constructed = journal.getEvents().get(1);
+        assertThat(constructed.getKind(), is(Journal.Kind.CONSTRUCTOR));
+        assertThat(constructed.getNanos() >= 0, is(true));
+    }
+
+    @Test
+    public void templatesMakeFreshInstancesFromTheSameResetMocks() {
+        Mockpico.Template<NeedsList> template = mockDepsFor(NeedsList.class).asTemplate();
+
+        NeedsList one = template.make();
+        one.oops();
+        NeedsList two = template.make();
+
+        assertNotSame(one, two);
+        assertSame(one.list, two.list);
+        Mockito.verifyNoMoreInteractions(two.list);
+    }
+
+    @Test
+    public void templatesKeepTheirInjectees() {
+        Mockpico.Template<A> template = mockDepsFor(A.class)
+                .withInjectees(b, c)
+                .asTemplate();
+
+        assertTheseHappenedInOrder(
+                aMadeWith(memberVarsCandB()),
+                atInjectMethodCalledWith(memberVarB()),
+                autowiredMethodCalledWith(memberVarB()),
+                autowiredFieldSetTo(memberVarB()),
+                atInjectFieldSetTo(memberVarB())
+        ).to(template.make());
+    }
+
+    @Test
+    public void proxyMockerAnswersDefaultsForInterfacesUntilAskedForTheMock() {
+        NeedsList nl = mockDepsFor(NeedsList.class)
+                .make(new ProxyMocker());
+
+        nl.oops();
+        assertThat(nl.list.size(), is(0));
+
+        Mockito.when(Mockpico.mockOf(nl.list).size()).thenReturn(3);
+        assertThat(nl.list.size(), is(3));
+        Mockito.verify(Mockpico.mockOf(nl.list)).size();
+    }
+
+    @Test
+    public void proxyMockerLeavesConcreteClassesToMockito() {
+        A a = mockDepsFor(A.class).make(new ProxyMocker());
+
+        assertTheseHappenedInOrder(
+                aMadeWith(mockCandB()),
+                atInjectMethodCalledWith(mockB()),
+                autowiredMethodCalledWith(mockB()),
+                autowiredFieldSetTo(mockB()),
+                atInjectFieldSetTo(mockB())
+        ).to(a);
+    }
+
+    @Test
+    public void severalTypesCanBeMadeAgainstOneSetOfMocks() {
+        Mockpico.Made made = Mockpico.mockDepsForAll(NeedsList.class, AlsoNeedsList.class, A.class)
+                .withInjectees(c)
+                .make();
+
+        assertSame(made.get(NeedsList.class).list, made.get(AlsoNeedsList.class).list);
+        assertThat(made.getAll().size(), is(3));
+        assertTheseHappenedInOrder(
+                aMadeWith("c,mock[B]#0"),
+                atInjectMethodCalledWith("mock[B]#0"),
+                autowiredMethodCalledWith("mock[B]#0"),
+                autowiredFieldSetTo("mock[B]#0"),
+                atInjectFieldSetTo("mock[B]#0")
+        ).to(made.get(A.class));
+
+        made.get(AlsoNeedsList.class).oops();
+        try {
+            Mockpico.verifyNoMoreInteractionsForAll(made.getMocks());
+            fail("should have barfed");
+        } catch (NoInteractionsWanted e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void aTypeMadeForAllAfterOneDependingOnItIsMadeForRealAndItsMockKept() {
+        Mockpico.Made made = Mockpico.mockDepsForAll(NeedsNeedsList.class, NeedsList.class).make();
+
+        NeedsList mocked = made.get(NeedsNeedsList.class).needsList;
+        assertThat(Mockito.mockingDetails(mocked).isMock(), is(true));
+        assertThat(Mockito.mockingDetails(made.get(NeedsList.class)).isMock(), is(false));
+        assertSame(made.get(NeedsList.class), made.getMocks().getComponent(NeedsList.class));
+
+        mocked.oops();
+        try {
+            Mockpico.verifyNoMoreInteractionsForAll(made.getMocks());
+            fail("should have barfed");
+        } catch (NoInteractionsWanted e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void aTypeMadeForAllBeforeOneDependingOnItIsInjectedIntoIt() {
+        Mockpico.Made made = Mockpico.mockDepsForAll(NeedsList.class, NeedsNeedsList.class).make();
+
+        assertSame(made.get(NeedsList.class), made.get(NeedsNeedsList.class).needsList);
+    }
+
+    @Test
+    public void mocksCanBeMadeUpFrontInParallel() {
+        Journal journal = new Journal();
+        A a = mockDepsFor(A.class)
+                .withParallelMocks(true)
+                .journalTo(journal)
+                .make();
+
+        assertTheseHappenedInOrder(
+                aMadeWith(mockCandB()),
+                atInjectMethodCalledWith(mockB()),
+                autowiredMethodCalledWith(mockB()),
+                autowiredFieldSetTo(mockB()),
+                atInjectFieldSetTo(mockB())
+        ).to(a);
+        List<Journal.Event> events = journal.getEvents();
+        assertEquals(Journal.Kind.MOCKED, events.get(0).getKind());
+        assertEquals(C.class, events.get(0).getType());
+        assertEquals(Journal.Kind.MOCKED, events.get(1).getKind());
+        assertEquals(B.class, events.get(1).getType());
+        assertEquals(Journal.Kind.CONSTRUCTOR, events.get(2).getKind());
+    }
+
+    @Test
+    public void mockerThatIsNotThreadSafeIsCalledOneAtATimeForUpFrontMocks() {
+        final AtomicInteger inMocker = new AtomicInteger();
+        final AtomicInteger mostAtOnce = new AtomicInteger();
+        Mockpico.Mocker mocker = new Mockpico.Mocker() {
+            public <T> T mock(Class<T> classToMock) {
+                mostAtOnce.set(Math.max(mostAtOnce.get(), inMocker.incrementAndGet()));
+                try {
+                    return Mockito.mock(classToMock);
+                } finally {
+                    inMocker.decrementAndGet();
+                }
+            }
+        };
+
+        mockDepsFor(A.class).withParallelMocks(false).make(mocker);
+
+        assertEquals(1, mostAtOnce.get());
+    }
+
+    @Test
+    public void warmUpMocksEachDependencyTypeOnce() {
+        WarmUp.Report report = WarmUp.forTypes(A.class, NeedsList.class, AlsoNeedsList.class).run();
+
+        assertEquals(3, report.getTargets());
+        assertEquals(Arrays.<Class<?>>asList(C.class, B.class, List.class), report.getPrepared());
+        assertTrue(report.getFailed().isEmpty());
+    }
+
+    @Test
+    public void warmUpCanScanAPackage() {
+        WarmUp.Report report = WarmUp.forPackage("com.thoughtworks.mockpico").run();
+
+        assertTrue(report.getPrepared().contains(B.class));
+        assertTrue(report.getPrepared().contains(List.class));
+    }
+
+    @Test
+    public void dependencyInjectedIntoAFieldIsReboundInPlace() {
+        Journal journal = new Journal();
+        Till till = mockDepsFor(Till.class).journalTo(journal).rebindable().make();
+        C c = till.c;
+        List failing = mock(List.class);
+
+        Till rebound = Mockpico.rebind(till, failing);
+
+        assertSame(till, rebound);
+        assertSame(failing, till.payments);
+        assertSame(c, till.c);
+        assertTrue(journal.toString(), journal.toString().endsWith(
+                "Field being injected: 'payments' with: " + failing + "\n" +
+                "Rebound: interface java.util.List, to: " + failing + "\n"));
+    }
+
+    @Test
+    public void dependencyInjectedIntoTheConstructorRemakesJustTheObject() {
+        Till till = mockDepsFor(Till.class).rebindable().make();
+        C realC = new C();
+
+        Till rebound = Mockpico.rebind(till, realC);
+
+        assertNotSame(till, rebound);
+        assertSame(realC, rebound.c);
+        assertSame(till.payments, rebound.payments);
+        assertSame(realC, Mockpico.rebind(rebound, C.class, realC).c);
+    }
+
+    @Test
+    public void objectsCanBeReboundAfterAGarbageCollection() {
+        Till till = mockDepsFor(Till.class).rebindable().make();
+        C realC = new C();
+
+        System.gc();
+        Till rebound = Mockpico.rebind(till, realC);
+
+        assertSame(realC, rebound.c);
+        assertSame(till.payments, rebound.payments);
+    }
+
+    @Test
+    public void madeObjectsAndTheirContainersAreNotKeptForRebinding() {
+        Reference<Till> made = new WeakReference<Till>(mockDepsFor(Till.class).rebindable().make());
+
+        for (int i = 0; i < 20 && made.get() != null; i++) {
+            System.gc();
+        }
+
+        assertSame(null, made.get());
+    }
+
+    @Test
+    public void mockReplacedByARebindIsNoLongerVerifiedOrReset() {
+        MutablePicoContainer mocks = makePicoContainer();
+        Till till = mockDepsFor(Till.class).using(mocks).rebindable().make();
+        till.payments.add("stale");
+
+        Mockpico.rebind(till, mock(List.class));
+
+        Mockpico.verifyNoMoreInteractionsForAll(mocks);
+    }
+
+    @Test(expected = PicoCompositionException.class)
+    public void dependencyWithNowhereToGoCannotBeRebound() {
+        Mockpico.rebind(mockDepsFor(Till.class).rebindable().make(), new D());
+    }
+
+    @Test(expected = PicoCompositionException.class)
+    public void objectNotMadeRebindableCannotBeRebound() {
+        Mockpico.rebind(mockDepsFor(Till.class).make(), new C());
+    }
+
+    @Test
+    public void rebindingLeavesOtherObjectsMadeForAllInTheContainer() {
+        Mockpico.Made made = Mockpico.mockDepsForAll(Payments.class, Till.class).rebindable().make();
+        List failing = mock(List.class);
+
+        Till till = Mockpico.rebind(made.get(Till.class), List.class, failing);
+
+        assertSame(failing, till.payments);
+        assertSame(made.get(Payments.class), made.getMocks().getComponent(Payments.class));
+    }
+
+    @Test(expected = PicoCompositionException.class)
+    public void objectMockpicoDidNotMakeCannotBeRebound() {
+        Mockpico.rebind(new Till(new C()), new C());
+    }
+
+    @Test
+    public void genericVariantsOfATypeEachGetAMockOfTheirOwn() {
+        NeedsLists one = mockDepsFor(NeedsLists.class).make();
+        NeedsLists two = mockDepsFor(NeedsLists.class).make();
+
+        assertNotSame(one.strings, one.integers);
+        assertNotSame(one.strings, two.strings);
+        assertSame(one.strings.getClass(), two.integers.getClass());
+        assertTrue(Mockito.mockingDetails(two.integers).isMock());
+    }
+
+    @Test
+    public void dependenciesWithACheapRealValueAreNotMocked() {
+        NeedsValues nv = mockDepsFor(NeedsValues.class).make();
+
+        assertSame(TimeUnit.NANOSECONDS, nv.unit);
+        assertEquals(0, nv.names.length);
+        assertSame(BigDecimal.ZERO, nv.amount);
+        assertTrue(Mockito.mockingDetails(nv.list).isMock());
+    }
+
+    @Test
+    public void emptyCollectionsAndValuesOfYourOwnCanBeAskedFor() {
+        DefaultValues defaultValues = DefaultValues.standard().withEmptyCollections().with(BigDecimal.class, BigDecimal.ONE);
+
+        NeedsValues nv = mockDepsFor(NeedsValues.class)
+                .withDefaultValues(defaultValues)
+                .make();
+
+        assertSame(Collections.emptyList(), nv.list);
+        assertSame(BigDecimal.ONE, nv.amount);
+        assertTrue(WarmUp.forTypes(NeedsValues.class).withDefaultValues(defaultValues).run().getPrepared().isEmpty());
+    }
+
     @Test
     public void nonsenseAnnotationDoesntUpsetMockPico() {
         Class<? extends Annotation> ann = Mockpico.getInjectionAnnotation("foo.Bar");
         assertThat(ann.getName(), equalTo("com.thoughtworks.mockpico.Mockpico$AnnotationNotFound"));
     }
 
+    @Test
+    public void injectionPlansAreReusedAcrossMakes() {
+        mockDepsFor(NeedsList.class).make();
+        long misses = InjectionPlan.cacheMisses();
+        long hits = InjectionPlan.cacheHits();
+
+        mockDepsFor(NeedsList.class).make();
+
+        assertEquals(misses, InjectionPlan.cacheMisses());
+        assertEquals(hits + 1, InjectionPlan.cacheHits());
+    }
+
+    @Test
+    public void injectionPlanHoldsConstructorAnnotatedFieldsAndAnnotatedMethods() {
+        InjectionPlan plan = InjectionPlan.forType(A.class);
+
+        assertThat(plan.isUsable(), is(true));
+        assertThat(plan.getConstructor().getParameterTypes().length, is(2));
+        assertThat(plan.getFields().length, is(2));
+        assertThat(plan.getMethods().length, is(2));
+    }
+
+    @Test
+    public void plannedMakesGiveGenericDependenciesWhatPicoWould() {
+        ArrayList<String> strings = new ArrayList<String>();
+        NeedsLists planned = mockDepsFor(NeedsLists.class).withInjectees(strings).make();
+        NeedsLists picoMade = mockDepsFor(NeedsLists.class).withInjectionTypes(picoInjectionTypes())
+                .withInjectees(strings).make();
+
+        assertThat(InjectionPlan.forType(NeedsLists.class).isUsable(), is(true));
+        assertEquals(picoMade.strings == strings, planned.strings == strings);
+        assertEquals(Mockito.mockingDetails(picoMade.strings).isMock(), Mockito.mockingDetails(planned.strings).isMock());
+        assertTrue(Mockito.mockingDetails(planned.integers).isMock());
+    }
+
+    @Test
+    public void plannedMakesFindInjecteesInAParentContainerAsPicoWould() {
+        C c = new C();
+        Till planned = mockDepsFor(Till.class).withSharedInjectees(SharedInjectees.of(c)).make();
+        Till picoMade = mockDepsFor(Till.class)
+                .using(makePicoContainer(SharedInjectees.of(c).getContainer(), picoInjectionTypes())).make();
+
+        assertSame(c, picoMade.c);
+        assertSame(c, planned.c);
+        assertTrue(Mockito.mockingDetails(planned.payments).isMock());
+    }
+
+    @Test
+    public void plannedMakesLetRuntimeExceptionsThroughAsPicoWould() {
+        assertThat(InjectionPlan.forType(Refuses.class).isUsable(), is(true));
+        assertSame(IllegalStateException.class, failureOf(mockDepsFor(Refuses.class)).getClass());
+        assertSame(IllegalStateException.class,
+                failureOf(mockDepsFor(Refuses.class).withInjectionTypes(picoInjectionTypes())).getClass());
+    }
+
+    @Test
+    public void plannedMakesWrapCheckedExceptionsAsPicoWould() {
+        RuntimeException planned = failureOf(mockDepsFor(RefusesChecked.class));
+        RuntimeException picoMade = failureOf(mockDepsFor(RefusesChecked.class).withInjectionTypes(picoInjectionTypes()));
+
+        assertSame(picoMade.getClass(), planned.getClass());
+        assertSame(java.io.IOException.class, planned.getCause().getClass());
+        assertSame(picoMade.getCause().getClass(), planned.getCause().getClass());
+    }
+
+    @Test
+    public void classesWithNonPublicAnnotatedMethodsAreLeftToPico() {
+        assertThat(InjectionPlan.forType(HiddenSetter.class).isUsable(), is(false));
+    }
+
+    private static InjectionType[] picoInjectionTypes() {
+        return new InjectionType[] {
+                CDI(),
+                new AnnotatedFieldInjection(Mockpico.INJECTION_ANNOTATIONS),
+                new AnnotatedMethodInjection(false, Mockpico.INJECTION_ANNOTATIONS)
+        };
+    }
+
+    private static RuntimeException failureOf(Mockpico.JournalOrMakeNext<?> next) {
+        try {
+            next.make();
+        } catch (RuntimeException e) {
+            return e;
+        }
+        throw new AssertionError("expected make() to fail");
+    }
+
+    public static class Refuses {
+        public Refuses(C c) {
+            throw new IllegalStateException("no");
+        }
+    }
+
+    public static class RefusesChecked {
+        public RefusesChecked(C c) throws java.io.IOException {
+            throw new java.io.IOException("no");
+        }
+    }
+
+    public static class HiddenSetter {
+        public HiddenSetter(C c) {
+        }
+
+        @Inject
+        void setB(B b) {
+        }
+    }
+
     public static class NeedsList {
         private List list;
 
@@ -337,6 +923,64 @@ public class MockpicoTestCase {
 
     }
 
+    public static class Till {
+        private final C c;
+        @Inject
+        private List payments;
+
+        public Till(C c) {
+            this.c = c;
+        }
+    }
+
+    public static class Payments extends ArrayList<Object> {
+    }
+
+    public static class NeedsLists {
+        private final List<String> strings;
+        private final List<Integer> integers;
+
+        public NeedsLists(List<String> strings, List<Integer> integers) {
+            this.strings = strings;
+            this.integers = integers;
+        }
+    }
+
+    public static class NeedsValues {
+        private final TimeUnit unit;
+        private final String[] names;
+        private final BigDecimal amount;
+        private final List list;
+
+        public NeedsValues(TimeUnit unit, String[] names, BigDecimal amount, List list) {
+            this.unit = unit;
+            this.names = names;
+            this.amount = amount;
+            this.list = list;
+        }
+    }
+
+    public static class NeedsNeedsList {
+        private final NeedsList needsList;
+
+        public NeedsNeedsList(NeedsList needsList) {
+            this.needsList = needsList;
+        }
+    }
+
+    public static class AlsoNeedsList {
+        private List list;
+
+        public AlsoNeedsList(List list) {
+            this.list = list;
+        }
+
+        public void oops() {
+            list.add("oops");
+        }
+
+    }
+
     public static class A {
 
         private StringBuilder sb = new StringBuilder();
@@ -527,7 +1171,7 @@ public class MockpicoTestCase {
     }
 
     private String aBunchOfPrimitives() {
-        return "String#0,Integer#1,Double#2,Double#2,Float#3,Byte#4,Short#5,mock[BigInteger]#2,Character#6,Long#7";
+        return "String#0,Integer#1,Double#2,Double#2,Float#3,Byte#4,Short#5,BigInteger#6,Character#7,Long#8";
     }
 
     private String customAnnotatedMethodCalledWith(String with) {
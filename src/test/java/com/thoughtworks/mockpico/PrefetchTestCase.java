@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import com.picocontainer.PicoCompositionException;
+import org.junit.Test;
+
+import javax.inject.Inject;
+
+import static com.thoughtworks.mockpico.Mockpico.mockDepsFor;
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+
+public class PrefetchTestCase {
+
+    @Test
+    public void eachInstanceTakenHasMocksOfItsOwn() {
+        Mockpico.Prefetch<Shop> shops = mockDepsFor(Shop.class).prefetching(2);
+        try {
+            Shop one = shops.take();
+            Shop two = shops.take();
+
+            assertNotSame(one, two);
+            assertNotSame(one.basket, two.basket);
+            assertNotSame(one.till, two.till);
+        } finally {
+            shops.close();
+        }
+    }
+
+    @Test
+    public void eachInstanceTakenHasAJournalOfItsOwn() {
+        Journal journal = new Journal();
+        Mockpico.Prefetch<Shop> shops = mockDepsFor(Shop.class).journalTo(journal).prefetching(2);
+        try {
+            Shop one = shops.take();
+            Shop two = shops.take();
+
+            assertNotSame(shops.journalOf(one), shops.journalOf(two));
+            assertFalse(shops.journalOf(one).getEvents().isEmpty());
+            assertEquals(withoutHashCodes(shops.journalOf(one)), withoutHashCodes(shops.journalOf(two)));
+            assertEquals(0, journal.getEvents().size());
+        } finally {
+            shops.close();
+        }
+    }
+
+    @Test
+    public void instancesAreMadeAheadUpToTheDepthAndTakingThemDoesNotStall() throws InterruptedException {
+        Mockpico.Prefetch<Shop> shops = mockDepsFor(Shop.class).prefetching(3);
+        try {
+            long giveUp = System.currentTimeMillis() + 10000;
+            while (shops.getQueueDepth() < 3 && System.currentTimeMillis() < giveUp) {
+                Thread.sleep(10);
+            }
+            assertEquals(3, shops.getQueueDepth());
+
+            shops.take();
+            shops.take();
+            shops.take();
+
+            assertEquals(0, shops.getStalls());
+        } finally {
+            shops.close();
+        }
+    }
+
+    @Test
+    public void failureToMakeIsThrownByEveryTake() {
+        Mockpico.Prefetch<Broken> broken = mockDepsFor(Broken.class).prefetching(1);
+        try {
+            for (int i = 0; i < 2; i++) {
+                try {
+                    broken.take();
+                    fail("should have barfed");
+                } catch (RuntimeException e) {
+                    // as the constructor threw it, possibly wrapped
+                }
+            }
+        } finally {
+            broken.close();
+        }
+    }
+
+    @Test
+    public void aClosedPrefetchCannotBeTakenFrom() {
+        Mockpico.Prefetch<Shop> shops = mockDepsFor(Shop.class).prefetching(1);
+        shops.close();
+        try {
+            shops.take();
+            fail("should have barfed");
+        } catch (PicoCompositionException e) {
+            assertEquals("Prefetching of " + Shop.class.getName() + " was closed", e.getMessage());
+        }
+        assertFalse(shops.toString().contains("null"));
+    }
+
+    private static String withoutHashCodes(Journal journal) {
+        return journal.toString().replaceAll("hashCode: \\d+", "hashCode: <HC>").replaceAll("@[0-9a-f]+", "@<HC>");
+    }
+
+    public interface Basket {
+        void add(String item);
+    }
+
+    public interface Till {
+        int total();
+    }
+
+    public static class Shop {
+        private final Basket basket;
+        @Inject
+        private Till till;
+
+        public Shop(Basket basket) {
+            this.basket = basket;
+        }
+    }
+
+    public static class Broken {
+        public Broken(Basket basket) {
+            throw new IllegalStateException("broken");
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import com.picocontainer.PicoCompositionException;
+import org.junit.Test;
+
+import javax.inject.Inject;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.thoughtworks.mockpico.Mockpico.mockDepsFor;
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class SharedInjecteesTestCase {
+
+    @Test
+    public void sharedInjecteesAreBuiltOnceAndInjectedIntoEveryMake() {
+        int before = Grammar.BUILT.get();
+        SharedInjectees shared = SharedInjectees.of(Grammar.class, Parser.class);
+
+        Report one = mockDepsFor(Report.class).withSharedInjectees(shared).make();
+        Report two = mockDepsFor(Report.class).withSharedInjectees(shared).make();
+
+        assertEquals(before + 1, Grammar.BUILT.get());
+        assertSame(shared.get(Parser.class), one.parser);
+        assertSame(one.parser, two.parser);
+        assertSame(shared.get(Grammar.class), one.parser.grammar);
+    }
+
+    @Test
+    public void mocksStayInTheChildContainerOfEachMake() {
+        SharedInjectees shared = SharedInjectees.of(Grammar.class, Parser.class);
+
+        Report one = mockDepsFor(Report.class).withSharedInjectees(shared).make();
+        Report two = mockDepsFor(Report.class).withSharedInjectees(shared).make();
+
+        assertNotSame(one.printer, two.printer);
+        assertNull(shared.getContainer().getComponent(Printer.class));
+    }
+
+    @Test
+    public void sharedInjecteesAreFoundWhenMocksAreMadeUpFront() {
+        SharedInjectees shared = SharedInjectees.of(Grammar.class, Parser.class);
+
+        Report report = mockDepsFor(Report.class).withSharedInjectees(shared).withParallelMocks(true).make();
+
+        assertSame(shared.get(Parser.class), report.parser);
+    }
+
+    @Test
+    public void templatesMakeFromTheSharedInjecteesToo() {
+        SharedInjectees shared = SharedInjectees.of(Grammar.class, Parser.class);
+
+        Mockpico.Template<Report> reports = mockDepsFor(Report.class).withSharedInjectees(shared).asTemplate();
+
+        assertSame(shared.get(Parser.class), reports.make().parser);
+    }
+
+    @Test
+    public void forJvmBuildsOncePerSetOfTypes() {
+        assertSame(SharedInjectees.forJvm(Grammar.class), SharedInjectees.forJvm(Grammar.class));
+        assertNotSame(SharedInjectees.forJvm(Grammar.class), SharedInjectees.forJvm(Grammar.class, Parser.class));
+    }
+
+    @Test
+    public void mocksCannotBeShared() {
+        try {
+            SharedInjectees.of(mock(Printer.class));
+            fail("should have barfed");
+        } catch (PicoCompositionException e) {
+            assertEquals("A mock can't be shared", e.getMessage().substring(0, 22));
+        }
+    }
+
+    @Test
+    public void sharedInjecteesCannotDependOnWhatIsNotShared() {
+        try {
+            SharedInjectees.of(Parser.class);
+            fail("should have barfed");
+        } catch (PicoCompositionException e) {
+            // Grammar would have to be mocked, and that mock would be shared
+        }
+    }
+
+    public static class Grammar {
+        static final AtomicInteger BUILT = new AtomicInteger();
+
+        public Grammar() {
+            BUILT.incrementAndGet();
+        }
+    }
+
+    public static class Parser {
+        private final Grammar grammar;
+
+        public Parser(Grammar grammar) {
+            this.grammar = grammar;
+        }
+    }
+
+    public interface Printer {
+        void print(String what);
+    }
+
+    public static class Report {
+        private final Parser parser;
+        @Inject
+        private Printer printer;
+
+        public Report(Parser parser) {
+            this.parser = parser;
+        }
+    }
+
+}
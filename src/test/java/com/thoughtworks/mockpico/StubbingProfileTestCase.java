@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import com.picocontainer.PicoCompositionException;
+import org.junit.Test;
+import org.mockito.internal.stubbing.StubbedInvocationMatcher;
+
+import static com.thoughtworks.mockpico.Mockpico.mockDepsFor;
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+public class StubbingProfileTestCase {
+
+    @Test
+    public void stubbingsRecordedOnceAreReplayedOntoTheMocksOfLaterMakes() {
+        StubbingProfile profile = StubbingProfile.record("in stock", stub(mockDepsFor(Shelf.class).rebindable().make()));
+
+        Shelf shelf = mockDepsFor(Shelf.class).withStubbing(profile).make();
+
+        assertEquals(3, shelf.stock.count("apples"));
+        assertEquals(0, shelf.stock.count("pears"));
+        assertEquals(25, shelf.catalog.product("apples").price().pence());
+        assertEquals("Stubbing profile 'in stock': 2 stubbings of 2 dependencies", profile.toString());
+    }
+
+    @Test
+    public void eachReplayHasDeepMocksOfItsOwn() {
+        Shelf template = stub(mockDepsFor(Shelf.class).rebindable().make());
+        StubbingProfile profile = StubbingProfile.record("in stock", template);
+
+        Shelf one = mockDepsFor(Shelf.class).withStubbing(profile).make();
+        Shelf two = mockDepsFor(Shelf.class).withStubbing(profile).make();
+
+        assertNotSame(one.catalog.product("apples"), two.catalog.product("apples"));
+        assertNotSame(template.catalog.product("apples"), one.catalog.product("apples"));
+    }
+
+    @Test
+    public void stubbingsATestAddsWinOverReplayedOnes() {
+        StubbingProfile profile = StubbingProfile.record("in stock", stub(mockDepsFor(Shelf.class).rebindable().make()));
+
+        Shelf shelf = mockDepsFor(Shelf.class).withStubbing(profile).make();
+        when(shelf.stock.count("apples")).thenReturn(7);
+
+        assertEquals(7, shelf.stock.count("apples"));
+        assertEquals(25, shelf.catalog.product("apples").price().pence());
+    }
+
+    @Test
+    public void replayedStubbingsAreInPlaceBeforeTheConstructorRuns() {
+        StubbingProfile profile = StubbingProfile.record("in stock", stub(mockDepsFor(Shelf.class).rebindable().make()));
+
+        Shelf shelf = mockDepsFor(Shelf.class).withStubbing(profile).make();
+
+        assertEquals(3, shelf.applesAtOpening);
+    }
+
+    @Test
+    public void templatesReplayTheirStubbingsAfterResettingTheirMocks() {
+        StubbingProfile profile = StubbingProfile.record("in stock", stub(mockDepsFor(Shelf.class).rebindable().make()));
+        Mockpico.Template<Shelf> shelves = mockDepsFor(Shelf.class).withStubbing(profile).asTemplate();
+
+        Shelf first = shelves.make();
+        when(first.stock.count("apples")).thenReturn(7);
+        Shelf second = shelves.make();
+
+        assertEquals(3, second.applesAtOpening);
+        assertEquals(3, second.stock.count("apples"));
+        assertEquals(25, second.catalog.product("apples").price().pence());
+    }
+
+    @Test
+    public void lazyMocksAreStubbedAsTheyAreMaterialized() {
+        StubbingProfile profile = StubbingProfile.record("in stock", stub(mockDepsFor(Shelf.class).rebindable().make()));
+
+        Shelf shelf = mockDepsFor(Shelf.class).withLazyMocks().withStubbing(profile).make();
+
+        assertEquals(25, shelf.catalog.product("apples").price().pence());
+    }
+
+    @Test
+    public void mocksOfAnotherMockerAreStubbedToo() {
+        StubbingProfile profile = StubbingProfile.record("in stock", stub(mockDepsFor(Shelf.class).rebindable().make()));
+
+        Shelf shelf = mockDepsFor(Shelf.class).withStubbing(profile).make(MockPolicy.stubOnly());
+
+        assertEquals(25, shelf.catalog.product("apples").price().pence());
+    }
+
+    @Test
+    public void objectMockpicoDidNotMakeCannotBeRecordedFrom() {
+        try {
+            StubbingProfile.record("nothing", new Object());
+            fail("should have barfed");
+        } catch (PicoCompositionException e) {
+            assertEquals("Not made by Mockpico, or not rebindable(): ", e.getMessage().substring(0, 43));
+        }
+    }
+
+    @Test
+    public void aMockitoWhoseStubbingsCannotBeReadFailsToRecordWithAClearMessage() {
+        try {
+            StubbingProfile.answersField(StubbedInvocationMatcher.class, "answersOfANewerMockito");
+            fail("should have barfed");
+        } catch (PicoCompositionException e) {
+            assertEquals("This Mockito can't have its stubbings recorded, as "
+                    + "org.mockito.internal.stubbing.StubbedInvocationMatcher has no accessible "
+                    + "'answersOfANewerMockito' field: stub these mocks by hand instead", e.getMessage());
+        }
+    }
+
+    private static Shelf stub(Shelf shelf) {
+        when(shelf.stock.count("apples")).thenReturn(3);
+        when(shelf.catalog.product("apples").price().pence()).thenReturn(25);
+        return shelf;
+    }
+
+    public interface Price {
+        int pence();
+    }
+
+    public interface Product {
+        Price price();
+    }
+
+    public interface Catalog {
+        Product product(String name);
+    }
+
+    public interface Stock {
+        int count(String name);
+    }
+
+    public static class Shelf {
+        private final Stock stock;
+        private final Catalog catalog;
+        private final int applesAtOpening;
+
+        public Shelf(Stock stock, Catalog catalog) {
+            this.stock = stock;
+            this.catalog = catalog;
+            this.applesAtOpening = stock.count("apples");
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2010 ThoughtWorks
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.thoughtworks.mockpico;
+
+import com.picocontainer.MutablePicoContainer;
+import org.junit.Test;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.List;
+
+import static com.thoughtworks.mockpico.Mockpico.makePicoContainer;
+import static com.thoughtworks.mockpico.Mockpico.mockDepsFor;
+import static com.thoughtworks.mockpico.Mockpico.resetAll;
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+public class UsageReportTestCase {
+
+    @Test
+    public void mocksNeverCalledOnOrStubbedAreReportedPerMake() {
+        UsageReport usage = new UsageReport();
+
+        Checkout checkout = mockDepsFor(Checkout.class).trackUsageIn(usage).make();
+        when(checkout.prices.total()).thenReturn(10);
+        mockDepsFor(Checkout.class).trackUsageIn(usage).make();
+
+        List<UsageReport.Made> makes = usage.getMakes();
+        assertEquals(2, makes.size());
+        assertSame(Checkout.class, makes.get(0).getType());
+        assertEquals(2, makes.get(0).getDependencies().size());
+        assertEquals(1, makes.get(0).getUntouched().size());
+        assertSame(Audit.class, makes.get(0).getUntouched().get(0).getType());
+        assertTrue(makes.get(0).getUntouched().get(0).getNanos() >= 0);
+        assertEquals(2, makes.get(1).getUntouched().size());
+        assertEquals(3, usage.getUntouched().size());
+    }
+
+    @Test
+    public void mocksTouchedBeforeAResetStillCountAsTouched() {
+        UsageReport usage = new UsageReport();
+        MutablePicoContainer mocks = makePicoContainer();
+
+        Checkout checkout = mockDepsFor(Checkout.class).using(mocks).trackUsageIn(usage).make();
+        checkout.prices.total();
+        resetAll(mocks);
+
+        assertEquals(1, usage.getUntouched().size());
+        assertSame(Audit.class, usage.getUntouched().get(0).getType());
+    }
+
+    @Test
+    public void lazyPlaceholdersCountOnceMaterialized() {
+        UsageReport usage = new UsageReport();
+
+        Checkout checkout = mockDepsFor(Checkout.class).withLazyMocks().trackUsageIn(usage).make();
+        checkout.audit.record("x");
+
+        UsageReport.Dependency prices = usage.getUntouched().get(0);
+        assertSame(Prices.class, prices.getType());
+        assertEquals(-1, prices.getNanos());
+        assertFalse(prices.isTouched());
+    }
+
+    @Test
+    public void stubbingsReplayedFromAProfileDoNotTouch() {
+        Checkout template = mockDepsFor(Checkout.class).rebindable().make();
+        when(template.prices.total()).thenReturn(10);
+        StubbingProfile priced = StubbingProfile.record("priced", template);
+        UsageReport usage = new UsageReport();
+
+        Checkout checkout = mockDepsFor(Checkout.class).withStubbing(priced).trackUsageIn(usage).make();
+
+        assertEquals(10, checkout.prices.total());
+        assertEquals(1, usage.getUntouched().size());
+        assertSame(Audit.class, usage.getUntouched().get(0).getType());
+        mockDepsFor(Checkout.class).withStubbing(priced).trackUsageIn(usage).make();
+        assertEquals(3, usage.getUntouched().size());
+    }
+
+    @Test
+    public void mocksAreNotKeptForTheReport() {
+        UsageReport usage = new UsageReport();
+        Checkout checkout = mockDepsFor(Checkout.class).trackUsageIn(usage).make();
+        checkout.prices.total();
+        Reference<Prices> touched = new WeakReference<Prices>(checkout.prices);
+        Reference<Audit> untouched = new WeakReference<Audit>(checkout.audit);
+        checkout = null;
+
+        // which has the report settle the first one's mocks, and Mockito forget the last call
+        mockDepsFor(Checkout.class).trackUsageIn(usage).make().prices.total();
+        for (int i = 0; i < 20 && (touched.get() != null || untouched.get() != null); i++) {
+            System.gc();
+        }
+
+        assertSame(null, touched.get());
+        assertSame(null, untouched.get());
+        List<UsageReport.Dependency> first = usage.getMakes().get(0).getUntouched();
+        assertEquals(1, first.size());
+        assertSame(Audit.class, first.get(0).getType());
+    }
+
+    @Test
+    public void reportSummarizesByClassMadeAndByMake() {
+        UsageReport usage = new UsageReport();
+        mockDepsFor(Checkout.class).trackUsageIn(usage).make();
+
+        String report = usage.toString();
+
+        assertTrue(report, report.startsWith("Mocks never touched: 2 of 2 over 1 make() calls"));
+        assertTrue(report, report.contains("\n" + Checkout.class.getName() + "\n"));
+        assertTrue(report, report.contains("#1 " + Checkout.class.getName() + ": " + Prices.class.getName() + ", "
+                + Audit.class.getName()));
+    }
+
+    public interface Prices {
+        int total();
+    }
+
+    public interface Audit {
+        void record(String what);
+    }
+
+    public static class Checkout {
+        private final Prices prices;
+        private final Audit audit;
+
+        public Checkout(Prices prices, Audit audit) {
+            this.prices = prices;
+            this.audit = audit;
+        }
+    }
+
+}